@@ -0,0 +1,112 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import de.kontext_e.jqassistant.plugin.git.scanner.cache.FileCache;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.change.*;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the changes of the commits of a generated history: {@link GitRepositoryScanner#addCommitChanges} with the
+ * change nodes and their files, and {@link FileAnalyzer#addAsGitFile} alone.
+ *
+ * The store keeps its nodes in memory ({@link InMemoryStore}), so only the work of the plugin is measured. The
+ * results are per commit. Run with <code>gradle jmh -PjmhIncludes=CommitChangesBenchmark</code>, the allocation rate
+ * is reported by the <code>gc</code> profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommitChangesBenchmark {
+
+    private static final int COMMITS = 1_000;
+
+    @Param({"1", "10"})
+    public int filesPerCommit;
+
+    private File directory;
+    private List<GitCommit> gitCommits;
+    private List<GitCommitDescriptor> commitDescriptors;
+    private List<List<GitChangeDescriptor>> changeDescriptors;
+    private GitRepositoryScanner scanner;
+    private FileAnalyzer fileAnalyzer;
+
+    @Setup(Level.Trial)
+    public void generateRepository() throws IOException {
+        directory = Files.createTempDirectory("commit-changes-benchmark").toFile();
+        File gitDir = new RepositoryGenerator().commits(COMMITS).filesPerCommit(filesPerCommit).mergeEvery(10)
+                .generate(new File(directory, ".git"));
+        JGitRepository jGitRepository = new JGitRepository(gitDir.getAbsolutePath());
+        gitCommits = jGitRepository.findCommits(null);
+
+        Store store = InMemoryStore.create();
+        GitRepositoryDescriptor repositoryDescriptor = store.create(GitRepositoryDescriptor.class);
+        scanner = new GitRepositoryScanner(store, repositoryDescriptor, null, jGitRepository, true, new GitScannerConfiguration());
+        fileAnalyzer = new FileAnalyzer(new FileCache(store, repositoryDescriptor, true, jGitRepository.getPaths()), store);
+
+        // the commit and change nodes are created once, their relations are replaced by every invocation
+        commitDescriptors = new ArrayList<>(COMMITS);
+        changeDescriptors = new ArrayList<>(COMMITS);
+        for (GitCommit gitCommit : gitCommits) {
+            commitDescriptors.add(store.create(GitCommitDescriptor.class));
+            List<GitChangeDescriptor> descriptors = new ArrayList<>();
+            for (GitChange gitChange : gitCommit.getGitChanges()) {
+                descriptors.add(store.create(changeDescriptorType(gitChange)));
+            }
+            changeDescriptors.add(descriptors);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMITS)
+    public void addCommitChanges() {
+        for (int i = 0; i < gitCommits.size(); i++) {
+            GitCommitDescriptor commitDescriptor = commitDescriptors.get(i);
+            scanner.addCommitChanges(gitCommits.get(i), commitDescriptor);
+            commitDescriptor.getChanges().clear();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMITS)
+    public void addAsGitFile() {
+        for (int i = 0; i < gitCommits.size(); i++) {
+            GitCommit gitCommit = gitCommits.get(i);
+            List<GitChange> gitChanges = gitCommit.getGitChanges();
+            List<GitChangeDescriptor> descriptors = changeDescriptors.get(i);
+            for (int j = 0; j < gitChanges.size(); j++) {
+                fileAnalyzer.addAsGitFile(gitChanges.get(j), descriptors.get(j), gitCommit.getDate());
+            }
+        }
+    }
+
+    private static Class<? extends GitChangeDescriptor> changeDescriptorType(GitChange gitChange) {
+        switch (gitChange.getChangeType()) {
+            case ADD: return GitAddChangeDescriptor.class;
+            case DELETE: return GitDeleteChangeDescriptor.class;
+            case RENAME: return GitRenameChangeDescriptor.class;
+            case COPY: return GitCopyChangeDescriptor.class;
+            default: return GitUpdateChangeDescriptor.class;
+        }
+    }
+}
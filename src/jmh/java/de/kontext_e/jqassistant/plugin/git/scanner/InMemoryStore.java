@@ -0,0 +1,110 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import com.buschmais.xo.api.XOManager;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitDescriptor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Store} for fresh scans which keeps its descriptors in memory, so the benchmarks measure the work of the
+ * plugin without the cost of a graph database.
+ *
+ * Descriptors are proxies of their interfaces: setters and getters use a property map, collections of related
+ * descriptors are lists. Relations (created with a source and a target) are plain descriptors. Only commits are
+ * looked up by their id, so only they are kept by the store. Queries are not supported, a fresh scan does not need
+ * them.
+ */
+public final class InMemoryStore {
+
+    private InMemoryStore() {
+    }
+
+    public static Store create() {
+        Map<Long, Object> commitsById = new HashMap<>();
+        long[] nextId = {0};
+        XOManager xoManager = proxy(XOManager.class, (proxy, method, args) -> {
+            if (method.getName().equals("findById")) {
+                return commitsById.get(((Number) args[1]).longValue());
+            }
+            return defaultValue(method);
+        });
+        return proxy(Store.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "create":
+                    Class<?> type = (Class<?>) (args.length == 1 ? args[0] : args[1]);
+                    long id = nextId[0]++;
+                    Object descriptor = proxy(type, new DescriptorHandler(id));
+                    if (type == GitCommitDescriptor.class) {
+                        commitsById.put(id, descriptor);
+                    }
+                    return descriptor;
+                case "getXOManager":
+                    return xoManager;
+                case "hasActiveTransaction":
+                    return true;
+                case "executeQuery":
+                    throw new UnsupportedOperationException("Queries are not supported by the in-memory store");
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InMemoryStore.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) return false;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        return null;
+    }
+
+    private static class DescriptorHandler implements InvocationHandler {
+        private final long id;
+        private final Map<String, Object> properties = new HashMap<>();
+
+        DescriptorHandler(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            switch (name) {
+                case "getId":
+                    return id;
+                case "as":
+                    return proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return Long.hashCode(id);
+                case "toString":
+                    return proxy.getClass().getInterfaces()[0].getSimpleName() + properties;
+                default:
+            }
+            if (name.startsWith("set") && args != null && args.length == 1) {
+                properties.put(name.substring(3), args[0]);
+                return null;
+            }
+            if (name.startsWith("get") && (args == null || args.length == 0)) {
+                if (List.class.isAssignableFrom(method.getReturnType())) {
+                    return properties.computeIfAbsent(name.substring(3), key -> new ArrayList<>());
+                }
+                Object value = properties.get(name.substring(3));
+                return value != null ? value : defaultValue(method);
+            }
+            return defaultValue(method);
+        }
+    }
+}
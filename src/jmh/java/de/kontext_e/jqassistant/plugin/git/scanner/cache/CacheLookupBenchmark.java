@@ -0,0 +1,95 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import de.kontext_e.jqassistant.plugin.git.scanner.InMemoryStore;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up authors, committers and files in their caches the way a fresh scan does: most lookups hit, the first
+ * lookup of every key creates its descriptor. Files are looked up by their path and by the id of their path. The
+ * caches are unbounded: evicted keys would be looked up in the store, which needs queries.
+ *
+ * The results are per lookup. Run with <code>gradle jmh -PjmhIncludes=CacheLookupBenchmark</code>, the allocation
+ * rate is reported by the <code>gc</code> profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CacheLookupBenchmark {
+
+    private static final int LOOKUPS = 10_000;
+
+    @Param({"100", "10000"})
+    public int keys;
+
+    private String[] identities;
+    private String[] relativePaths;
+    private int[] pathIds;
+    private AuthorCache authorCache;
+    private CommitterCache committerCache;
+    private FileCache fileCache;
+
+    @Setup(Level.Trial)
+    public void createCaches() {
+        PathTable paths = new PathTable();
+        identities = new String[LOOKUPS];
+        relativePaths = new String[LOOKUPS];
+        pathIds = new int[LOOKUPS];
+        // the same sequence of keys for every run
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            int key = random.nextInt(keys);
+            identities[i] = "Developer " + key + " <developer" + key + "@example.com>";
+            relativePaths[i] = "src/main/java/dir" + (key % 100) + "/File" + key + ".java";
+            pathIds[i] = paths.intern(relativePaths[i]);
+        }
+
+        Store authorStore = InMemoryStore.create();
+        authorCache = new AuthorCache(authorStore, authorStore.create(GitRepositoryDescriptor.class), true);
+        Store committerStore = InMemoryStore.create();
+        committerCache = new CommitterCache(committerStore, committerStore.create(GitRepositoryDescriptor.class), true);
+        Store fileStore = InMemoryStore.create();
+        fileCache = new FileCache(fileStore, fileStore.create(GitRepositoryDescriptor.class), true, paths);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void authors(Blackhole blackhole) {
+        for (String identity : identities) {
+            blackhole.consume(authorCache.findOrCreate(identity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void committers(Blackhole blackhole) {
+        for (String identity : identities) {
+            blackhole.consume(committerCache.findOrCreate(identity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void filesByPath(Blackhole blackhole) {
+        for (String relativePath : relativePaths) {
+            blackhole.consume(fileCache.findOrCreate(relativePath));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void filesByPathId(Blackhole blackhole) {
+        for (int pathId : pathIds) {
+            blackhole.consume(fileCache.findOrCreate(pathId));
+        }
+    }
+}
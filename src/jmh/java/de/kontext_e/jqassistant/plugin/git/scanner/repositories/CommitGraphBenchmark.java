@@ -0,0 +1,65 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
+import de.kontext_e.jqassistant.plugin.git.scanner.RepositoryGenerator;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a generated history like a scan, with and without a commit-graph as written by a scan (without changed-path
+ * Bloom filters). The commit-graph is written once per trial, so writing it is not measured.
+ *
+ * Run with <code>gradle jmh -PjmhIncludes=CommitGraphBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommitGraphBenchmark {
+
+    @Param({"10000"})
+    public int commits;
+
+    @Param({"false", "true"})
+    public boolean commitGraph;
+
+    private File directory;
+    private File gitDir;
+    private GitScannerConfiguration configuration;
+
+    @Setup(Level.Trial)
+    public void generateRepository() throws IOException {
+        directory = Files.createTempDirectory("commit-graph-benchmark").toFile();
+        gitDir = new RepositoryGenerator().commits(commits).mergeEvery(10).generate(new File(directory, ".git"));
+        if (commitGraph) {
+            try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build()) {
+                CommitGraphFiles.writeIfMissing(repository);
+            }
+        }
+        configuration = new GitScannerConfiguration();
+        configuration.setUseCommitGraph(commitGraph);
+        configuration.setWriteCommitGraph(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    /*
+     * The walk of a scan including the tree diffs, the commit-graph saves parsing the commits for the walk itself.
+     */
+    @Benchmark
+    public int findCommits() throws IOException {
+        return new JGitRepository(gitDir.getAbsolutePath(), configuration).findCommits(null).size();
+    }
+}
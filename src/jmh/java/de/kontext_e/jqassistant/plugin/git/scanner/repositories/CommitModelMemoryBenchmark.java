@@ -0,0 +1,86 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
+import de.kontext_e.jqassistant.plugin.git.scanner.RepositoryGenerator;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The heap retained by the in-memory commit model of a generated history: all commits with their changes and parent
+ * references, as returned by {@link JGitRepository#findCommits(String)}.
+ *
+ * Reports <code>bytesPerCommit</code> (and <code>bytesPerChange</code>) as secondary results, measured as the used heap
+ * after a full GC with and without the walked commits. Run with
+ * <code>gradle jmh -PjmhIncludes=CommitModelMemoryBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CommitModelMemoryBenchmark {
+
+    @Param({"10000"})
+    public int commits;
+
+    @Param({"1", "10"})
+    public int filesPerCommit;
+
+    private File directory;
+    private File gitDir;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long bytesPerCommit;
+        public long bytesPerChange;
+    }
+
+    @Setup(Level.Trial)
+    public void generateRepository() throws IOException {
+        directory = Files.createTempDirectory("commit-model-memory-benchmark").toFile();
+        gitDir = new RepositoryGenerator().commits(commits).filesPerCommit(filesPerCommit).mergeEvery(10)
+                .generate(new File(directory, ".git"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    public int findCommits(RetainedHeap retainedHeap) throws IOException {
+        List<GitCommit> gitCommits = new JGitRepository(gitDir.getAbsolutePath(), new GitScannerConfiguration()).findCommits(null);
+        int numberOfCommits = gitCommits.size();
+        long changes = gitCommits.stream().mapToLong(gitCommit -> gitCommit.getGitChanges().size()).sum();
+
+        // the walk fills caches of JGit which outlive it, so only the difference with and without the commits counts
+        long withCommits = usedHeapAfterGc();
+        Reference.reachabilityFence(gitCommits);
+        gitCommits = null;
+        long retained = withCommits - usedHeapAfterGc();
+
+        retainedHeap.bytesPerCommit = retained / numberOfCommits;
+        retainedHeap.bytesPerChange = changes > 0 ? retained / changes : 0;
+        return numberOfCommits;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,59 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
+import de.kontext_e.jqassistant.plugin.git.scanner.RepositoryGenerator;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks and diffs all commits of a generated history with {@link JGitRepository#findCommits(String)}: the commit
+ * walk, the tree diffs with rename detection and the in-memory commit model.
+ *
+ * Run with <code>gradle jmh -PjmhIncludes=FindCommitsBenchmark</code>, the allocation rate is reported by the
+ * <code>gc</code> profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FindCommitsBenchmark {
+
+    @Param({"1000"})
+    public int commits;
+
+    @Param({"1", "10"})
+    public int filesPerCommit;
+
+    @Param({"1", "4"})
+    public int diffThreads;
+
+    private File directory;
+    private File gitDir;
+    private GitScannerConfiguration configuration;
+
+    @Setup(Level.Trial)
+    public void generateRepository() throws IOException {
+        directory = Files.createTempDirectory("find-commits-benchmark").toFile();
+        gitDir = new RepositoryGenerator().commits(commits).filesPerCommit(filesPerCommit).mergeEvery(10)
+                .generate(new File(directory, ".git"));
+        configuration = new GitScannerConfiguration();
+        configuration.setDiffThreads(diffThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    @Benchmark
+    public int findCommits() throws IOException {
+        return new JGitRepository(gitDir.getAbsolutePath(), configuration).findCommits(null).size();
+    }
+}
@@ -0,0 +1,124 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
+import de.kontext_e.jqassistant.plugin.git.scanner.RepositoryGenerator;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads a generated history from a single large pack (with delta chains) with the JGit default window cache and
+ * with tuned settings.
+ *
+ * The window cache is shared by the whole JVM, every setting runs in its own fork.
+ * Run with <code>gradle jmh -PjmhIncludes=PackCacheBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackCacheBenchmark {
+
+    @Param({"10000"})
+    public int commits;
+
+    @Param({"8192"})
+    public int fileSize;
+
+    @Param({"default", "large", "large-mmap"})
+    public String windowCache;
+
+    private File directory;
+    private File gitDir;
+    private GitScannerConfiguration configuration;
+    private Repository repository;
+
+    @Setup(Level.Trial)
+    public void generateRepository() throws IOException, GitAPIException {
+        directory = Files.createTempDirectory("pack-cache-benchmark").toFile();
+        gitDir = new RepositoryGenerator().commits(commits).fileSize(fileSize).mergeEvery(10).generate(new File(directory, ".git"));
+        try (Repository generated = new FileRepositoryBuilder().setGitDir(gitDir).build()) {
+            // repack everything into one pack with delta chains like a cloned repository
+            Git.wrap(generated).gc().setAggressive(false).call();
+        }
+
+        configuration = new GitScannerConfiguration();
+        if (windowCache.startsWith("large")) {
+            configuration.setPackedGitLimit(512L * WindowCacheConfig.MB);
+            configuration.setPackedGitWindowSize(64 * WindowCacheConfig.KB);
+            configuration.setDeltaBaseCacheLimit(64 * WindowCacheConfig.MB);
+        }
+        if (windowCache.endsWith("mmap")) {
+            configuration.setPackedGitMmap(true);
+        }
+        // opening a JGitRepository installs the window cache settings, the reader benchmark uses them as well
+        new JGitRepository(gitDir.getAbsolutePath(), configuration);
+        repository = new FileRepositoryBuilder().setGitDir(gitDir).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepository() throws IOException {
+        repository.close();
+        FileUtils.delete(directory, FileUtils.RECURSIVE);
+    }
+
+    /*
+     * Inflates every changed blob against the first parent, this mostly exercises the windows and the delta base cache.
+     */
+    @Benchmark
+    public long readChangedBlobs() throws IOException {
+        long bytes = 0;
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk rw = new RevWalk(reader);
+             TreeWalk tw = new TreeWalk(reader)) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_REFS)) {
+                rw.markStart(rw.parseCommit(ref.getObjectId()));
+            }
+            tw.setRecursive(true);
+            tw.setFilter(TreeFilter.ANY_DIFF);
+            for (RevCommit commit : rw) {
+                if (commit.getParentCount() == 0) continue;
+
+                tw.reset(rw.parseCommit(commit.getParent(0)).getTree(), commit.getTree());
+                while (tw.next()) {
+                    ObjectId blob = tw.getObjectId(1);
+                    if (!ObjectId.zeroId().equals(blob)) {
+                        bytes += reader.open(blob, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE).length;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /*
+     * The commit walk with diffs and rename detection of a scan.
+     */
+    @Benchmark
+    public long streamCommits() throws IOException {
+        AtomicLong changes = new AtomicLong();
+        new JGitRepository(gitDir.getAbsolutePath(), configuration).streamCommits(null, 1000,
+                batch -> batch.forEach(commit -> changes.addAndGet(commit.getGitChanges().size())));
+        return changes.get();
+    }
+}
@@ -0,0 +1,93 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timestamp formatting of storing commits: date and time of the commit, and the date with time of every
+ * relation between its changes and their files.
+ *
+ * Compares the former shared SimpleDateFormats, an uncached DateTimeFormatter and the {@link TimestampFormatter}.
+ * Run with <code>gradle jmh -PjmhIncludes=TimestampFormatterBenchmark</code>, add <code>-prof gc</code> to the JMH
+ * arguments for the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimestampFormatterBenchmark {
+
+    private static final int COMMITS = 1_000;
+
+    @Param({"1", "5", "20"})
+    public int changesPerCommit;
+
+    private Date[] commitDates;
+    private DateFormat dateFormat;
+    private DateFormat timeFormat;
+    private DateFormat dateTimeFormat;
+    private DateTimeFormatter dateTimeFormatter;
+    private TimestampFormatter timestampFormatter;
+
+    @Setup(Level.Trial)
+    public void createCommitDates() {
+        commitDates = new Date[COMMITS];
+        long epochMillis = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < COMMITS; i++) {
+            // a commit every 17 minutes, walked from the newest to the oldest
+            commitDates[COMMITS - 1 - i] = new Date(epochMillis + i * 17L * 60_000L);
+        }
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        timeFormat = new SimpleDateFormat("HH:mm:ss Z");
+        dateTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z");
+        dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z").withZone(ZoneId.systemDefault());
+        timestampFormatter = new TimestampFormatter(ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMITS)
+    public void simpleDateFormat(Blackhole blackhole) {
+        for (Date date : commitDates) {
+            blackhole.consume(dateFormat.format(date));
+            blackhole.consume(timeFormat.format(date));
+            for (int i = 0; i < changesPerCommit; i++) {
+                blackhole.consume(dateTimeFormat.format(date));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMITS)
+    public void dateTimeFormatter(Blackhole blackhole) {
+        for (Date date : commitDates) {
+            String dateTime = dateTimeFormatter.format(date.toInstant());
+            blackhole.consume(dateTime.substring(0, 10));
+            blackhole.consume(dateTime.substring(11));
+            for (int i = 0; i < changesPerCommit; i++) {
+                blackhole.consume(dateTimeFormatter.format(date.toInstant()));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMITS)
+    public void timestampFormatter(Blackhole blackhole) {
+        for (Date date : commitDates) {
+            blackhole.consume(timestampFormatter.formatDate(date));
+            blackhole.consume(timestampFormatter.formatTime(date));
+            for (int i = 0; i < changesPerCommit; i++) {
+                blackhole.consume(timestampFormatter.formatDateTime(date));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans several repositories (e.g. a superproject and its submodules) at once.
+ *
+ * Walking and diffing the commits of each repository runs on a bounded pool of threads, all store work is done
+ * one after another on the thread calling {@link #scanAll()}, which owns the store transaction. So the scan takes
+ * about as long as the slowest repository (or the store, whichever is slower) instead of the sum of all of them.
+ */
+class ConcurrentRepositoryScan {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentRepositoryScan.class);
+
+    private final int threads;
+    private final StoreLane storeLane = StoreLane.concurrent();
+    private final List<GitRepositoryScanner> scanners = new ArrayList<>();
+
+    ConcurrentRepositoryScan(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the lane the added {@link GitRepositoryScanner}s have to be created with
+     */
+    StoreLane getStoreLane() {
+        return storeLane;
+    }
+
+    void add(GitRepositoryScanner scanner) {
+        scanners.add(scanner);
+    }
+
+    /**
+     * @return the metrics of the added repositories, after {@link #scanAll()}
+     */
+    List<ScanMetrics> getMetrics() {
+        List<ScanMetrics> metrics = new ArrayList<>();
+        for (GitRepositoryScanner scanner : scanners) {
+            metrics.add(scanner.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Scans all added repositories. If some of them fail, the others are scanned nevertheless and the first
+     * failure is thrown once all scans are done, with the failures of the other repositories suppressed by it.
+     */
+    void scanAll() throws IOException {
+        if (scanners.isEmpty()) return;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, scanners.size()), new RepositoryThreadFactory());
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (GitRepositoryScanner scanner : scanners) {
+                scans.add(executor.submit(() -> {
+                    scanner.scanGitRepo();
+                    return null;
+                }));
+            }
+            storeLane.runUntilDone(scans);
+
+            Exception failure = null;
+            for (Future<?> scan : scans) {
+                try {
+                    StoreLane.await(scan);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.error("Could not scan Git repository: {}", e.getMessage());
+                    if (failure == null) { failure = e; } else { failure.addSuppressed(e); }
+                }
+            }
+            if (failure instanceof IOException) { throw (IOException) failure; }
+            if (failure != null) { throw (RuntimeException) failure; }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class RepositoryThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jqassistant-git-repository-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package de.kontext_e.jqassistant.plugin.git.scanner;
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.scanner.cache.FileCache;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.TimestampFormatter;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitFileDescriptor;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.change.*;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.relation.GitAddRelation;
@@ -11,8 +13,6 @@ import de.kontext_e.jqassistant.plugin.git.store.descriptor.relation.GitUpdateRe
 
 import java.util.Date;
 
-import static de.kontext_e.jqassistant.plugin.git.scanner.utils.TimeAndDateFormats.DATE_TIME_FORMAT;
-
 public class FileAnalyzer {
 
     private final FileCache fileCache;
@@ -24,7 +24,7 @@ public class FileAnalyzer {
     }
 
     void addAsGitFile(GitChange gitChange, final GitChangeDescriptor gitChangeDescriptor, final Date date) {
-        final GitFileDescriptor gitFileDescriptor = fileCache.findOrCreate(gitChange.getRelativePath());
+        final GitFileDescriptor gitFileDescriptor = findOrCreate(gitChange.getRelativePathId(), gitChange.getRelativePath());
 
         gitChangeDescriptor.setModifies(gitFileDescriptor);
 
@@ -41,62 +41,69 @@ public class FileAnalyzer {
         }
     }
 
+    /*
+     * Changes of a walk carry the ids of their interned paths, others (e.g. created by hand) only the paths.
+     */
+    private GitFileDescriptor findOrCreate(int pathId, String path) {
+        return pathId != PathTable.NO_ID ? fileCache.findOrCreate(pathId) : fileCache.findOrCreate(path);
+    }
+
     private void addAsAddChange(GitAddChangeDescriptor gitChangeDescriptor, Date date, GitFileDescriptor gitFileDescriptor) {
         updateCreationTime(gitFileDescriptor, date);
         GitAddRelation gitAddRelation = store.create(gitChangeDescriptor, GitAddRelation.class, gitFileDescriptor);
         gitAddRelation.setCreatedAtEpoch(date.getTime());
-        gitAddRelation.setCreatedAt(DATE_TIME_FORMAT.format(date));
+        gitAddRelation.setCreatedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
     }
 
     private void addAsUpdateChange(GitUpdateChangeDescriptor gitChangeDescriptor, Date date, GitFileDescriptor gitFileDescriptor) {
         updateLastModificationTime(gitFileDescriptor, date);
         GitUpdateRelation updateChangeDescriptor = store.create(gitChangeDescriptor, GitUpdateRelation.class, gitFileDescriptor);
         updateChangeDescriptor.setModifiedAtEpoch(date.getTime());
-        updateChangeDescriptor.setModifiedAt(DATE_TIME_FORMAT.format(date));
+        updateChangeDescriptor.setModifiedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
     }
 
     private void addAsDeleteChange(GitDeleteChangeDescriptor gitChangeDescriptor, Date date, GitFileDescriptor gitFileDescriptor) {
         updateDeletionTime(gitFileDescriptor, date);
         GitDeleteRelation deleteRelation = store.create(gitChangeDescriptor, GitDeleteRelation.class, gitFileDescriptor);
         deleteRelation.setDeletedAtEpoch(date.getTime());
-        deleteRelation.setDeletedAt(DATE_TIME_FORMAT.format(date));
+        deleteRelation.setDeletedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
     }
 
     private void addAsRenameChange(GitRenameChangeDescriptor gitChangeDescriptor, Date date, GitChange gitChange) {
-        final GitFileDescriptor oldFile = fileCache.findOrCreate(gitChange.getOldPath());
-        final GitFileDescriptor newFile = fileCache.findOrCreate(gitChange.getNewPath());
+        final GitFileDescriptor oldFile = findOrCreate(gitChange.getOldPathId(), gitChange.getOldPath());
+        final GitFileDescriptor newFile = findOrCreate(gitChange.getNewPathId(), gitChange.getNewPath());
 
         oldFile.setHasNewName(newFile);
         gitChangeDescriptor.setRenames(oldFile);
 
         GitDeleteRelation deleteRelation = store.create(gitChangeDescriptor, GitDeleteRelation.class, oldFile);
         deleteRelation.setDeletedAtEpoch(date.getTime());
-        deleteRelation.setDeletedAt(DATE_TIME_FORMAT.format(date));
+        deleteRelation.setDeletedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
         updateDeletionTime(oldFile, date);
 
         GitAddRelation gitAddRelation = store.create(gitChangeDescriptor, GitAddRelation.class, newFile);
         gitAddRelation.setCreatedAtEpoch(date.getTime());
-        gitAddRelation.setCreatedAt(DATE_TIME_FORMAT.format(date));
+        gitAddRelation.setCreatedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
         updateCreationTime(newFile, date);
     }
 
     private void addAsCopyChange(GitCopyChangeDescriptor gitChangeDescriptor, Date date, GitChange gitChange) {
-        final GitFileDescriptor oldFile = fileCache.findOrCreate(gitChange.getOldPath());
-        final GitFileDescriptor newFile = fileCache.findOrCreate(gitChange.getNewPath());
+        final GitFileDescriptor oldFile = findOrCreate(gitChange.getOldPathId(), gitChange.getOldPath());
+        final GitFileDescriptor newFile = findOrCreate(gitChange.getNewPathId(), gitChange.getNewPath());
 
         newFile.setCopyOf(oldFile);
         gitChangeDescriptor.setCopies(oldFile);
 
         GitAddRelation gitAddRelation = store.create(gitChangeDescriptor, GitAddRelation.class, newFile);
         gitAddRelation.setCreatedAtEpoch(date.getTime());
-        gitAddRelation.setCreatedAt(DATE_TIME_FORMAT.format(date));
+        gitAddRelation.setCreatedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
         updateCreationTime(newFile, date);
     }
 
     private void updateDeletionTime(GitFileDescriptor descriptor, Date date) {
         //Always take latest delete Change
         if (descriptor.getDeletedAtEpoch() == null || date.getTime() > descriptor.getDeletedAtEpoch()) {
-            descriptor.setDeletedAt(DATE_TIME_FORMAT.format(date));
+            descriptor.setDeletedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
             descriptor.setDeletedAtEpoch(date.getTime());
         }
     }
@@ -104,7 +111,7 @@ public class FileAnalyzer {
     private void updateCreationTime(GitFileDescriptor descriptor, Date date) {
         //Always take earliest create change
         if (descriptor.getCreatedAt() == null || date.getTime() < descriptor.getCreatedAtEpoch()) {
-            descriptor.setCreatedAt(DATE_TIME_FORMAT.format(date));
+            descriptor.setCreatedAt(TimestampFormatter.DEFAULT.formatDateTime(date));
             descriptor.setCreatedAtEpoch(date.getTime());
         }
     }
@@ -112,7 +119,7 @@ public class FileAnalyzer {
     private void updateLastModificationTime(GitFileDescriptor descriptor, Date date) {
         //Always take latest update change
         if (descriptor.getLastModificationAtEpoch() == null || date.getTime() > descriptor.getLastModificationAtEpoch()) {
-            descriptor.setLastModificationAt(DATE_TIME_FORMAT.format(date));
+            descriptor.setLastModificationAt(TimestampFormatter.DEFAULT.formatDateTime(date));
             descriptor.setLastModificationAtEpoch(date.getTime());
         }
     }
@@ -2,18 +2,36 @@ package de.kontext_e.jqassistant.plugin.git.scanner;
 
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.scanner.cache.*;
+import de.kontext_e.jqassistant.plugin.git.scanner.jfr.RepositoryScanEvent;
+import de.kontext_e.jqassistant.plugin.git.scanner.jfr.ScanPhaseEvent;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitBranch;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCheckpoint;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
 import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.TimestampFormatter;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.*;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.change.*;
+import org.eclipse.jgit.diff.DiffEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.findShaOfLatestScannedCommitOfBranch;
 
@@ -32,33 +50,161 @@ public class GitRepositoryScanner {
     private final FileCache fileCache;
     private final TagCache tagCache;
     private final BranchCache branchCache;
+    private final GitScannerConfiguration configuration;
+    private final StoreLane storeLane;
+    private final ScanProgress progress;
+    // parent SHA -> SHAs of already stored children which are still waiting for that parent
+    private final Map<String, List<String>> pendingParentRelations = new HashMap<>();
+    private final boolean isFreshScan;
     private String range;
+    private int commitsInTransaction = 0;
+    private String walkId;
+    // the position of the walk written to the checkpoint, including the commits of an interrupted scan
+    private long checkpointCommits = 0;
+    private String checkpointSha;
+    private Future<?> storedBatch = null;
+    // the walk is timed between the batches, waiting for the store is not part of it
+    private PhaseTimer walkTimer;
+    // the phases are timed on the scanning thread and on the store lane
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(ScanMetrics.Phase.values().length);
+    private long scanNanos;
+    private long walkedCommitCount = 0;
+    private long diffEntries = 0;
+    private long storedCommitCount = 0;
+    private long storedChanges = 0;
 
     GitRepositoryScanner(final Store store, final GitRepositoryDescriptor gitRepositoryDescriptor, final String range, JGitRepository jGitRepository, boolean isFreshScan) {
+        this(store, gitRepositoryDescriptor, range, jGitRepository, isFreshScan, new GitScannerConfiguration());
+    }
+
+    GitRepositoryScanner(final Store store, final GitRepositoryDescriptor gitRepositoryDescriptor, final String range, JGitRepository jGitRepository, boolean isFreshScan, GitScannerConfiguration configuration) {
+        this(store, gitRepositoryDescriptor, range, jGitRepository, isFreshScan, configuration, StoreLane.DIRECT);
+    }
+
+    /**
+     * Must be created on the thread owning the store transaction. With a concurrent {@link StoreLane},
+     * {@link #scanGitRepo()} may run on another thread, it only reads the repository there and hands all store
+     * work over to the lane.
+     */
+    GitRepositoryScanner(final Store store, final GitRepositoryDescriptor gitRepositoryDescriptor, final String range, JGitRepository jGitRepository, boolean isFreshScan, GitScannerConfiguration configuration, StoreLane storeLane) {
         this.store = store;
+        this.storeLane = storeLane;
+        this.configuration = configuration;
         this.gitRepositoryDescriptor = gitRepositoryDescriptor;
         this.range = range;
         this.jGitRepository = jGitRepository;
+        this.isFreshScan = isFreshScan;
 
         this.commitCache = new CommitCache(store, isFreshScan);
-        this.authorCache = new AuthorCache(store, isFreshScan);
-        this.committerCache = new CommitterCache(store, isFreshScan);
-        this.fileCache = new FileCache(store, isFreshScan);
+        // authors and committers are added to the repository as soon as they are created or found in the store
+        this.authorCache = new AuthorCache(store, gitRepositoryDescriptor, isFreshScan, configuration.getIdentityCacheSize());
+        this.committerCache = new CommitterCache(store, gitRepositoryDescriptor, isFreshScan, configuration.getIdentityCacheSize());
+        // files are looked up by the ids of the paths the walk has interned, and added to the repository when created
+        this.fileCache = new FileCache(store, gitRepositoryDescriptor, isFreshScan, jGitRepository.getPaths(), configuration.getFileCacheSize());
         this.tagCache = new TagCache(store, gitRepositoryDescriptor);
         this.branchCache = new BranchCache(store, gitRepositoryDescriptor);
 
         this.fileAnalyzer = new FileAnalyzer(fileCache, store);
+        this.progress = new ScanProgress(gitRepositoryDescriptor.getFileName(), Duration.ofSeconds(configuration.getProgressInterval()));
     }
 
     void scanGitRepo() throws IOException {
-        checkForExistingCommitsAndAdjustRangeAccordingly();
+        long start = System.nanoTime();
+        RepositoryScanEvent event = new RepositoryScanEvent();
+        event.begin();
+        storeLane.run(() -> {
+            PhaseTimer prepare = new PhaseTimer(ScanMetrics.Phase.PREPARE);
+            checkForExistingCommitsAndAdjustRangeAccordingly();
+            prepare.stop();
+        });
 
         storeCommits();
-        storeBranches();
-        storeTags();
 
-        addAdditionalRelations();
-        adjustGitHead();
+        List<GitBranch> gitBranches = jGitRepository.findBranches();
+        List<GitTag> gitTags = jGitRepository.findTags();
+        GitBranch head = jGitRepository.findHead();
+        storeLane.run(() -> {
+            PhaseTimer phase = new PhaseTimer(ScanMetrics.Phase.STORE_BRANCHES);
+            storeBranches(gitBranches);
+            phase = phase.next(ScanMetrics.Phase.STORE_TAGS);
+            storeTags(gitTags);
+
+            phase = phase.next(ScanMetrics.Phase.ADJUST_GIT_HEAD);
+            adjustGitHead(head);
+            phase.stop();
+        });
+        scanNanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.repository = gitRepositoryDescriptor.getFileName();
+            event.walkedCommits = walkedCommitCount;
+            event.storedCommits = storedCommitCount;
+            event.diffEntries = diffEntries;
+            event.commit();
+        }
+        logMetrics();
+    }
+
+    /*
+     * Times a phase for the metrics and records it as a JFR event if it is slow.
+     */
+    private final class PhaseTimer {
+        private final ScanMetrics.Phase phase;
+        private final ScanPhaseEvent event = new ScanPhaseEvent();
+        private final long start = System.nanoTime();
+
+        PhaseTimer(ScanMetrics.Phase phase) {
+            this.phase = phase;
+            event.begin();
+        }
+
+        void stop() {
+            phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = gitRepositoryDescriptor.getFileName();
+                event.phase = phase.name();
+                event.commit();
+            }
+        }
+
+        PhaseTimer next(ScanMetrics.Phase nextPhase) {
+            stop();
+            return new PhaseTimer(nextPhase);
+        }
+    }
+
+    private void logMetrics() {
+        LOGGER.info("{}", getMetrics());
+        for (CacheStatistics statistics : getCacheStatistics()) {
+            LOGGER.info("{} of Git repository '{}'", statistics, gitRepositoryDescriptor.getFileName());
+        }
+    }
+
+    /**
+     * @return the durations and counters of the last {@link #scanGitRepo()}
+     */
+    ScanMetrics getMetrics() {
+        Map<ScanMetrics.Phase, Duration> phases = new EnumMap<>(ScanMetrics.Phase.class);
+        for (ScanMetrics.Phase phase : ScanMetrics.Phase.values()) {
+            phases.put(phase, Duration.ofNanos(phaseNanos.get(phase.ordinal())));
+        }
+        List<CacheStatistics> caches = new ArrayList<>();
+        caches.add(commitCache.getStatistics());
+        caches.addAll(getCacheStatistics());
+        long storeCreates = storedChanges;
+        for (CacheStatistics cache : caches) {
+            storeCreates += cache.getCreates();
+        }
+        return new ScanMetrics(gitRepositoryDescriptor.getFileName(), Duration.ofNanos(scanNanos), phases,
+                walkedCommitCount, storedCommitCount, diffEntries, storeCreates, caches);
+    }
+
+    /**
+     * @return the counters of the author, committer and file caches, e.g. to size them
+     */
+    List<CacheStatistics> getCacheStatistics() {
+        return List.of(authorCache.getStatistics(), committerCache.getStatistics(), fileCache.getStatistics());
     }
 
     private void checkForExistingCommitsAndAdjustRangeAccordingly() throws IOException {
@@ -97,22 +243,212 @@ public class GitRepositoryScanner {
         }
     }
 
-    private void addAdditionalRelations() {
-        authorCache.getAuthors().forEach(gitAuthor -> gitRepositoryDescriptor.getAuthors().add(gitAuthor));
-        committerCache.getCommitters().forEach(gitCommitter -> gitRepositoryDescriptor.getCommitters().add(gitCommitter));
-        fileCache.getFiles().forEach(gitFile -> gitRepositoryDescriptor.getFiles().add(gitFile));
-    }
-
-    private void adjustGitHead() throws IOException {
-        GitBranch head = jGitRepository.findHead();
+    private void adjustGitHead(GitBranch head) {
         GitCommitDescriptor headDescriptor = commitCache.get(head.getCommitSha());
         gitRepositoryDescriptor.setHead(headDescriptor);
     }
 
     private void storeCommits() throws IOException {
-        List<GitCommit> newCommits = jGitRepository.findCommits(range);
-        storeCommitNodes(newCommits);
-        addParentRelationship(newCommits);
+        PhaseTimer phase = new PhaseTimer(ScanMetrics.Phase.PREPARE);
+        Set<String> storedHeads = storeLane.call(this::findStoredHeads);
+        walkId = jGitRepository.getWalkId(range, storedHeads);
+        GitCheckpoint checkpoint = storeLane.call(this::restoreCheckpoint);
+        if (progress.isEnabled()) {
+            // counting is cheap with the commit-graph, otherwise it is an additional walk over the whole history
+            boolean countCommits = configuration.isProgressCountCommits() || jGitRepository.hasCommitGraph();
+            progress.start(countCommits ? jGitRepository.countCommits(range, storedHeads) : -1, checkpointCommits);
+        }
+        walkTimer = phase.next(ScanMetrics.Phase.WALK);
+        try {
+            jGitRepository.streamCommits(range, storedHeads, checkpoint, configuration.getCommitBatchSize(), this::submitCommitBatch);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        walkTimer.stop();
+        awaitStoredBatch();
+        storeLane.run(() -> {
+            addPendingParentRelationships();
+            clearCheckpoint();
+        });
+    }
+
+    /*
+     * The walk goes on with the next batch while the previous one is stored, so at most two batches are held.
+     */
+    private void submitCommitBatch(List<GitCommit> walkedBatch) {
+        walkTimer.stop();
+        walkedCommitCount += walkedBatch.size();
+        for (GitCommit gitCommit : walkedBatch) {
+            diffEntries += gitCommit.getGitChanges().size();
+        }
+        progress.walked(walkedBatch.size());
+        try {
+            awaitStoredBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        storedBatch = storeLane.submit(() -> storeCommitBatch(walkedBatch));
+        walkTimer = new PhaseTimer(ScanMetrics.Phase.WALK);
+    }
+
+    private void awaitStoredBatch() throws IOException {
+        if (storedBatch == null) return;
+
+        Future<?> batch = storedBatch;
+        storedBatch = null;
+        StoreLane.await(batch);
+    }
+
+    /*
+     * A checkpoint is left by a scan which did not finish. Its pending parent relations are always taken over,
+     * the walk can only be resumed if it is the same walk (same range and refs) as before.
+     */
+    private GitCheckpoint restoreCheckpoint() {
+        String checkpointWalk = gitRepositoryDescriptor.getCheckpointWalk();
+        if (isFreshScan || checkpointWalk == null) return null;
+
+        String[] pendingParents = gitRepositoryDescriptor.getCheckpointPendingParents();
+        if (pendingParents != null) {
+            for (String pendingParent : pendingParents) {
+                String[] shas = pendingParent.split(":");
+                List<String> childShas = pendingParentRelations.computeIfAbsent(shas[0], key -> new ArrayList<>());
+                childShas.addAll(List.of(shas[1].split(",")));
+            }
+        }
+
+        if (!checkpointWalk.equals(walkId)) {
+            LOGGER.info("Found checkpoint of an interrupted scan with other refs or range, already stored commits will be skipped");
+            return null;
+        }
+        checkpointCommits = gitRepositoryDescriptor.getCheckpointCommits();
+        GitCheckpoint checkpoint = new GitCheckpoint(walkId, checkpointCommits, gitRepositoryDescriptor.getCheckpointSha());
+        LOGGER.info("Resuming interrupted scan after #{} commits (last stored commit {})", checkpoint.getCommits(), checkpoint.getLastSha());
+        return checkpoint;
+    }
+
+    /*
+     * Only written right before the transaction is committed, a checkpoint of uncommitted commits is lost with them.
+     * The pending parent relations are written once per parent, as "<parent sha>:<child sha>,<child sha>".
+     */
+    private void writeCheckpoint() {
+        String[] pendingParents = new String[pendingParentRelations.size()];
+        int i = 0;
+        for (Map.Entry<String, List<String>> pending : pendingParentRelations.entrySet()) {
+            pendingParents[i++] = pending.getKey() + ":" + String.join(",", pending.getValue());
+        }
+
+        gitRepositoryDescriptor.setCheckpointWalk(walkId);
+        gitRepositoryDescriptor.setCheckpointCommits(checkpointCommits);
+        gitRepositoryDescriptor.setCheckpointSha(checkpointSha);
+        gitRepositoryDescriptor.setCheckpointPendingParents(pendingParents);
+    }
+
+    private void clearCheckpoint() {
+        if (gitRepositoryDescriptor.getCheckpointWalk() == null) return;
+
+        gitRepositoryDescriptor.setCheckpointWalk(null);
+        gitRepositoryDescriptor.setCheckpointCommits(null);
+        gitRepositoryDescriptor.setCheckpointSha(null);
+        gitRepositoryDescriptor.setCheckpointPendingParents(null);
+    }
+
+    /*
+     * Without a range all refs are walked. On a rescan everything reachable from the branch and tag heads of the
+     * previous scan is already stored, so the walk may stop there.
+     */
+    private Set<String> findStoredHeads() {
+        if (range != null || isFreshScan) return Collections.emptySet();
+
+        Set<String> storedHeads = new HashSet<>();
+        List<GitCommitDescriptor> headDescriptors = new ArrayList<>(branchCache.getStoredHeads());
+        headDescriptors.addAll(tagCache.getStoredCommits());
+        for (GitCommitDescriptor headDescriptor : headDescriptors) {
+            commitCache.addToCache(headDescriptor);
+            storedHeads.add(headDescriptor.getSha());
+        }
+        LOGGER.info("Scanning only commits which are not reachable from #{} already stored branch and tag heads", storedHeads.size());
+        return storedHeads;
+    }
+
+    private void storeCommitBatch(List<GitCommit> walkedBatch) {
+        PhaseTimer phase = new PhaseTimer(ScanMetrics.Phase.STORE_COMMITS);
+        List<GitCommit> commitBatch = withoutStoredCommits(walkedBatch);
+        LOGGER.debug("Storing batch of #{} commits", commitBatch.size());
+        preloadFromStore(commitBatch);
+        storeCommitNodes(commitBatch);
+        addParentRelationship(commitBatch);
+        commitCache.releaseDescriptors();
+
+        checkpointCommits += walkedBatch.size();
+        checkpointSha = walkedBatch.get(walkedBatch.size() - 1).getSha();
+        commitsInTransaction += commitBatch.size();
+        int commitsPerTransaction = configuration.getCommitsPerTransaction();
+        if (commitsPerTransaction > 0 && commitsInTransaction >= commitsPerTransaction) {
+            writeCheckpoint();
+            flushTransaction();
+        }
+        storedCommitCount += commitBatch.size();
+        phase.stop();
+        progress.stored(walkedBatch.size());
+    }
+
+    /*
+     * Commits may already be stored although they were walked again (e.g. a ref was moved back or the previous scan
+     * used a range), storing them again would duplicate them and their changes.
+     */
+    private List<GitCommit> withoutStoredCommits(List<GitCommit> walkedCommits) {
+        if (isFreshScan) return walkedCommits;
+
+        commitCache.preload(walkedCommits.stream().map(GitCommit::getSha).collect(Collectors.toList()));
+        List<GitCommit> newCommits = new ArrayList<>(walkedCommits.size());
+        for (GitCommit gitCommit : walkedCommits) {
+            if (!commitCache.isCached(gitCommit)) {
+                newCommits.add(gitCommit);
+            } else {
+                LOGGER.debug("Commit {} is already stored", gitCommit.getSha());
+            }
+        }
+        return newCommits;
+    }
+
+    /*
+     * Descriptors are only bound to their node ids, so the ones held by the caches stay valid
+     * and can be used in the new transaction.
+     */
+    private void flushTransaction() {
+        if (!store.hasActiveTransaction()) return;
+
+        LOGGER.debug("Committing transaction after #{} commits", commitsInTransaction);
+        store.commitTransaction();
+        store.beginTransaction();
+        commitsInTransaction = 0;
+    }
+
+    /*
+     * On a rescan, resolve everything the batch refers to with one query per node type instead of one per cache miss.
+     */
+    private void preloadFromStore(List<GitCommit> commitBatch) {
+        Set<String> authors = new LinkedHashSet<>();
+        Set<String> committers = new LinkedHashSet<>();
+        Set<String> paths = new LinkedHashSet<>();
+        for (GitCommit gitCommit : commitBatch) {
+            authors.add(gitCommit.getAuthor());
+            committers.add(gitCommit.getCommitter());
+            for (GitChange gitChange : gitCommit.getGitChanges()) {
+                paths.add(gitChange.getRelativePath());
+                if (isRenameOrCopy(gitChange)) {
+                    paths.add(gitChange.getOldPath());
+                    paths.add(gitChange.getNewPath());
+                }
+            }
+        }
+        authorCache.preload(authors);
+        committerCache.preload(committers);
+        fileCache.preload(paths);
+    }
+
+    private static boolean isRenameOrCopy(GitChange gitChange) {
+        return gitChange.getChangeType() == DiffEntry.ChangeType.RENAME || gitChange.getChangeType() == DiffEntry.ChangeType.COPY;
     }
 
     private void storeCommitNodes(List<GitCommit> newCommits) {
@@ -149,31 +485,44 @@ public class GitRepositoryScanner {
         for (GitChange gitChange : gitCommit.getGitChanges()) {
             GitChangeDescriptor gitChangeDescriptor = createGitChangeDescriptor(gitChange);
             gitChangeDescriptor.setModificationKind(gitChange.getModificationKind());
+            gitChangeDescriptor.setParentSha(gitChange.getParentSha());
             gitCommitDescriptor.getChanges().add(gitChangeDescriptor);
             fileAnalyzer.addAsGitFile(gitChange, gitChangeDescriptor, gitCommit.getDate());
         }
+        storedChanges += gitCommit.getGitChanges().size();
     }
 
     private GitChangeDescriptor createGitChangeDescriptor(GitChange gitChange) {
-        switch (gitChange.getModificationKind().toUpperCase()){
-            case "A": return store.create(GitAddChangeDescriptor.class);
-            case "M": return store.create(GitUpdateChangeDescriptor.class);
-            case "D": return store.create(GitDeleteChangeDescriptor.class);
-            case "R": return store.create(GitRenameChangeDescriptor.class);
-            case "C": return store.create(GitCopyChangeDescriptor.class);
+        switch (gitChange.getChangeType()){
+            case ADD: return store.create(GitAddChangeDescriptor.class);
+            case MODIFY: return store.create(GitUpdateChangeDescriptor.class);
+            case DELETE: return store.create(GitDeleteChangeDescriptor.class);
+            case RENAME: return store.create(GitRenameChangeDescriptor.class);
+            case COPY: return store.create(GitCopyChangeDescriptor.class);
             default : return store.create(GitChangeDescriptor.class);
         }
     }
 
+    /*
+     * Commits are walked from children to parents, so usually the parent of a commit has not been stored yet.
+     * Such relations are remembered by SHA and added as soon as the parent commit gets stored.
+     */
     private void addParentRelationship(List<GitCommit> newCommits) {
         for (GitCommit gitCommit : newCommits) {
             String sha = gitCommit.getSha();
-            GitCommitDescriptor gitCommitDescriptor = commitCache.get(sha);
+            GitCommitDescriptor gitCommitDescriptor = commitCache.get(gitCommit);
+
+            List<String> waitingChildren = pendingParentRelations.remove(sha);
+            if (waitingChildren != null) {
+                for (String childSha : waitingChildren) {
+                    commitCache.get(childSha).getParents().add(gitCommitDescriptor);
+                }
+            }
+
             for (GitCommit parent : gitCommit.getParents()) {
-                String parentSha = parent.getSha();
-                GitCommitDescriptor parentCommit = commitCache.get(parentSha);
+                GitCommitDescriptor parentCommit = commitCache.getCached(parent);
                 if (null == parentCommit) {
-                    LOGGER.warn ("Cannot add (parent) commit with SHA '{}' (excluded by range?)", parentSha);
+                    pendingParentRelations.computeIfAbsent(parent.getSha(), key -> new ArrayList<>()).add(sha);
                 } else {
                     gitCommitDescriptor.getParents().add(parentCommit);
                 }
@@ -181,29 +530,55 @@ public class GitRepositoryScanner {
         }
     }
 
-    private void storeBranches() {
-        for (GitBranch gitBranch : jGitRepository.findBranches()) {
+    private void addPendingParentRelationships() {
+        commitCache.preload(pendingParentRelations.keySet());
+        for (Map.Entry<String, List<String>> pending : pendingParentRelations.entrySet()) {
+            String parentSha = pending.getKey();
+            GitCommitDescriptor parentCommit = commitCache.get(parentSha);
+            if (null == parentCommit) {
+                LOGGER.warn ("Cannot add (parent) commit with SHA '{}' (excluded by range?)", parentSha);
+                continue;
+            }
+            for (String childSha : pending.getValue()) {
+                commitCache.get(childSha).getParents().add(parentCommit);
+            }
+        }
+        pendingParentRelations.clear();
+    }
+
+    private void storeBranches(List<GitBranch> gitBranches) {
+        commitCache.preload(gitBranches.stream().map(GitBranch::getCommitSha).collect(Collectors.toList()));
+        for (GitBranch gitBranch : gitBranches) {
             GitBranchDescriptor gitBranchDescriptor = branchCache.findOrCreate(gitBranch);
             GitCommitDescriptor gitCommitDescriptor = commitCache.get(gitBranch.getCommitSha());
             if (null == gitCommitDescriptor) {
                 LOGGER.warn ("Cannot retrieve commit '{}' for branch '{}'", gitBranch.getCommitSha(), gitBranchDescriptor.getName());
             }
             gitBranchDescriptor.setHead(gitCommitDescriptor);
-            if (!gitRepositoryDescriptor.getBranches().contains(gitBranchDescriptor)){
-                gitRepositoryDescriptor.getBranches().add(gitBranchDescriptor);
-            }
         }
     }
 
-    private void storeTags() throws IOException {
-        for (GitTag gitTag : jGitRepository.findTags()) {
+    private void storeTags(List<GitTag> gitTags) {
+        commitCache.preload(gitTags.stream().map(GitTag::getCommitSha).collect(Collectors.toList()));
+        for (GitTag gitTag : gitTags) {
             GitTagDescriptor gitTagDescriptor = tagCache.findOrCreate(gitTag);
             GitCommitDescriptor gitCommitDescriptor = commitCache.get(gitTag.getCommitSha());
             if (null == gitCommitDescriptor) {
                 LOGGER.warn ("Cannot retrieve commit '{}' for tag '{}'", gitTag.getCommitSha(), gitTagDescriptor.getLabel());
             }
             gitTagDescriptor.setCommit(gitCommitDescriptor);
-            gitRepositoryDescriptor.getTags().add(gitTagDescriptor);
+            addTagAnnotation(gitTag, gitTagDescriptor);
+        }
+    }
+
+    private void addTagAnnotation(GitTag gitTag, GitTagDescriptor gitTagDescriptor) {
+        if (gitTag.getMessage() == null) return;
+
+        gitTagDescriptor.setTagger(gitTag.getTagger());
+        gitTagDescriptor.setMessage(gitTag.getMessage());
+        if (gitTag.getDate() != null) {
+            gitTagDescriptor.setDate(TimestampFormatter.DEFAULT.formatDateTime(gitTag.getDate()));
+            gitTagDescriptor.setEpoch(gitTag.getDate().getTime());
         }
     }
 
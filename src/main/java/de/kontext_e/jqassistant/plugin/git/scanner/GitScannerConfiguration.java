@@ -0,0 +1,340 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.model.RenameDetection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tuning options for scanning a single Git repository.
+ *
+ * The values are read from the plugin properties in {@link GitScannerPlugin} and handed to the
+ * {@link GitRepositoryScanner} and the JGit based repository access.
+ */
+public class GitScannerConfiguration {
+
+    public static final int DEFAULT_COMMIT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_DIFF_THREADS = 1;
+    public static final int DEFAULT_COMMITS_PER_TRANSACTION = 0;
+    public static final int DEFAULT_REPOSITORY_THREADS = 1;
+    public static final int DEFAULT_FILE_CACHE_SIZE = 0;
+    public static final int DEFAULT_IDENTITY_CACHE_SIZE = 0;
+    public static final int DEFAULT_RENAME_DETECTION_MAX_CHANGES = 0;
+    public static final RenameDetection DEFAULT_RENAME_DETECTION_FALLBACK = RenameDetection.EXACT;
+    public static final int DEFAULT_RENAME_DETECTION_TIMEOUT = 0;
+    public static final MergeDiffMode DEFAULT_MERGE_DIFF_MODE = MergeDiffMode.ALL_PARENTS;
+    public static final int DEFAULT_PROGRESS_INTERVAL = 60;
+
+    private int commitBatchSize = DEFAULT_COMMIT_BATCH_SIZE;
+    private int diffThreads = DEFAULT_DIFF_THREADS;
+    private int commitsPerTransaction = DEFAULT_COMMITS_PER_TRANSACTION;
+    private int repositoryThreads = DEFAULT_REPOSITORY_THREADS;
+    private int fileCacheSize = DEFAULT_FILE_CACHE_SIZE;
+    private int identityCacheSize = DEFAULT_IDENTITY_CACHE_SIZE;
+    private Integer renameLimit = null;
+    private int renameDetectionMaxChanges = DEFAULT_RENAME_DETECTION_MAX_CHANGES;
+    private RenameDetection renameDetectionFallback = DEFAULT_RENAME_DETECTION_FALLBACK;
+    private int renameDetectionTimeout = DEFAULT_RENAME_DETECTION_TIMEOUT;
+    private MergeDiffMode mergeDiffMode = DEFAULT_MERGE_DIFF_MODE;
+    private boolean useCommitGraph = true;
+    private boolean writeCommitGraph = false;
+    private int progressInterval = DEFAULT_PROGRESS_INTERVAL;
+    private boolean progressCountCommits = false;
+    private List<String> includePaths = Collections.emptyList();
+    private List<String> excludePaths = Collections.emptyList();
+    private Long packedGitLimit = null;
+    private Integer packedGitWindowSize = null;
+    private Integer deltaBaseCacheLimit = null;
+    private Integer packedGitOpenFiles = null;
+    private Boolean packedGitMmap = null;
+
+    /**
+     * @return the number of commits which are read from the repository and handed to the store at once
+     */
+    public int getCommitBatchSize() {
+        return commitBatchSize;
+    }
+
+    public void setCommitBatchSize(int commitBatchSize) {
+        if (commitBatchSize < 1) { throw new IllegalArgumentException("Commit batch size must be positive but was " + commitBatchSize); }
+        this.commitBatchSize = commitBatchSize;
+    }
+
+    /**
+     * @return the number of threads computing the changes of commits, 1 means the commits are diffed while walking
+     */
+    public int getDiffThreads() {
+        return diffThreads;
+    }
+
+    public void setDiffThreads(int diffThreads) {
+        if (diffThreads < 1) { throw new IllegalArgumentException("Number of diff threads must be positive but was " + diffThreads); }
+        this.diffThreads = diffThreads;
+    }
+
+    /**
+     * @return the number of stored commits after which the store transaction is committed and a new one is started,
+     * 0 keeps everything in the transaction opened by jQAssistant
+     */
+    public int getCommitsPerTransaction() {
+        return commitsPerTransaction;
+    }
+
+    public void setCommitsPerTransaction(int commitsPerTransaction) {
+        if (commitsPerTransaction < 0) { throw new IllegalArgumentException("Commits per transaction must not be negative but was " + commitsPerTransaction); }
+        this.commitsPerTransaction = commitsPerTransaction;
+    }
+
+    /**
+     * @return the number of repositories (a repository and its submodules) which are read concurrently,
+     * 1 scans them one after another
+     */
+    public int getRepositoryThreads() {
+        return repositoryThreads;
+    }
+
+    public void setRepositoryThreads(int repositoryThreads) {
+        if (repositoryThreads < 1) { throw new IllegalArgumentException("Number of repository threads must be positive but was " + repositoryThreads); }
+        this.repositoryThreads = repositoryThreads;
+    }
+
+    /**
+     * @return the maximum number of file descriptors cached while scanning a repository, 0 for no limit
+     */
+    public int getFileCacheSize() {
+        return fileCacheSize;
+    }
+
+    public void setFileCacheSize(int fileCacheSize) {
+        if (fileCacheSize < 0) { throw new IllegalArgumentException("File cache size must not be negative but was " + fileCacheSize); }
+        this.fileCacheSize = fileCacheSize;
+    }
+
+    /**
+     * @return the maximum number of author and of committer descriptors cached while scanning a repository,
+     * 0 for no limit
+     */
+    public int getIdentityCacheSize() {
+        return identityCacheSize;
+    }
+
+    public void setIdentityCacheSize(int identityCacheSize) {
+        if (identityCacheSize < 0) { throw new IllegalArgumentException("Identity cache size must not be negative but was " + identityCacheSize); }
+        this.identityCacheSize = identityCacheSize;
+    }
+
+    /**
+     * @return the maximum number of added and deleted files for content similarity based rename detection, diffs
+     * with more only get exact rename detection, null uses the <code>diff.renameLimit</code> of the repository (or
+     * the JGit default)
+     */
+    public Integer getRenameLimit() {
+        return renameLimit;
+    }
+
+    public void setRenameLimit(Integer renameLimit) {
+        if (renameLimit != null && renameLimit < 0) { throw new IllegalArgumentException("Rename limit must not be negative but was " + renameLimit); }
+        this.renameLimit = renameLimit;
+    }
+
+    /**
+     * @return the number of changes of a commit above which the fallback rename detection is used, 0 means no limit
+     */
+    public int getRenameDetectionMaxChanges() {
+        return renameDetectionMaxChanges;
+    }
+
+    public void setRenameDetectionMaxChanges(int renameDetectionMaxChanges) {
+        if (renameDetectionMaxChanges < 0) { throw new IllegalArgumentException("Maximum number of changes for rename detection must not be negative but was " + renameDetectionMaxChanges); }
+        this.renameDetectionMaxChanges = renameDetectionMaxChanges;
+    }
+
+    /**
+     * @return the rename detection used for commits with too many changes or when the time budget is exceeded
+     */
+    public RenameDetection getRenameDetectionFallback() {
+        return renameDetectionFallback;
+    }
+
+    public void setRenameDetectionFallback(RenameDetection renameDetectionFallback) {
+        if (renameDetectionFallback == null || renameDetectionFallback == RenameDetection.FULL) { throw new IllegalArgumentException("Rename detection fallback must be exact or none but was " + renameDetectionFallback); }
+        this.renameDetectionFallback = renameDetectionFallback;
+    }
+
+    /**
+     * @return the time budget in milliseconds for the rename detection of a single commit, shared by the diffs against
+     * all of its parents, 0 means no limit
+     */
+    public int getRenameDetectionTimeout() {
+        return renameDetectionTimeout;
+    }
+
+    public void setRenameDetectionTimeout(int renameDetectionTimeout) {
+        if (renameDetectionTimeout < 0) { throw new IllegalArgumentException("Rename detection timeout must not be negative but was " + renameDetectionTimeout); }
+        this.renameDetectionTimeout = renameDetectionTimeout;
+    }
+
+    /**
+     * @return against which parents the changes of merge commits are computed
+     */
+    public MergeDiffMode getMergeDiffMode() {
+        return mergeDiffMode;
+    }
+
+    public void setMergeDiffMode(MergeDiffMode mergeDiffMode) {
+        if (mergeDiffMode == null) { throw new IllegalArgumentException("Merge diff mode must not be null"); }
+        this.mergeDiffMode = mergeDiffMode;
+    }
+
+    /**
+     * @return whether the commit walk takes parents, commit times and generation numbers from the commit-graph if the
+     * repository has one, its changed-path Bloom filters are not used
+     */
+    public boolean isUseCommitGraph() {
+        return useCommitGraph;
+    }
+
+    public void setUseCommitGraph(boolean useCommitGraph) {
+        this.useCommitGraph = useCommitGraph;
+    }
+
+    /**
+     * @return whether a commit-graph (without changed-path Bloom filters) is written before walking the commits if the
+     * repository has none, it is removed after the walk
+     */
+    public boolean isWriteCommitGraph() {
+        return writeCommitGraph;
+    }
+
+    public void setWriteCommitGraph(boolean writeCommitGraph) {
+        this.writeCommitGraph = writeCommitGraph;
+    }
+
+    /**
+     * @return the seconds between two progress reports of the commit walk, 0 turns the reports off
+     */
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    public void setProgressInterval(int progressInterval) {
+        if (progressInterval < 0) { throw new IllegalArgumentException("Progress interval must not be negative but was " + progressInterval); }
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * @return whether the commits are counted before the walk for the ETA of the progress reports even if the
+     * repository has no commit-graph, which takes an additional walk over the commit headers
+     */
+    public boolean isProgressCountCommits() {
+        return progressCountCommits;
+    }
+
+    public void setProgressCountCommits(boolean progressCountCommits) {
+        this.progressCountCommits = progressCountCommits;
+    }
+
+    /**
+     * @return the globs of the paths whose changes are scanned, empty means all paths
+     */
+    public List<String> getIncludePaths() {
+        return includePaths;
+    }
+
+    public void setIncludePaths(List<String> includePaths) {
+        this.includePaths = toPathGlobs(includePaths);
+    }
+
+    /**
+     * @return the globs of the paths whose changes are not scanned, even if they are included
+     */
+    public List<String> getExcludePaths() {
+        return excludePaths;
+    }
+
+    public void setExcludePaths(List<String> excludePaths) {
+        this.excludePaths = toPathGlobs(excludePaths);
+    }
+
+    /**
+     * @return the maximum number of bytes of pack files JGit keeps in its window cache, null uses the JGit default
+     */
+    public Long getPackedGitLimit() {
+        return packedGitLimit;
+    }
+
+    public void setPackedGitLimit(Long packedGitLimit) {
+        if (packedGitLimit != null && packedGitLimit < 1) { throw new IllegalArgumentException("Packed git limit must be positive but was " + packedGitLimit); }
+        this.packedGitLimit = packedGitLimit;
+    }
+
+    /**
+     * @return the number of bytes of a pack file read into one window of the cache, a power of 2 of at least 4 KiB,
+     * null uses the JGit default
+     */
+    public Integer getPackedGitWindowSize() {
+        return packedGitWindowSize;
+    }
+
+    public void setPackedGitWindowSize(Integer packedGitWindowSize) {
+        if (packedGitWindowSize != null && (packedGitWindowSize < 4096 || Integer.bitCount(packedGitWindowSize) != 1)) { throw new IllegalArgumentException("Packed git window size must be a power of 2 of at least 4096 but was " + packedGitWindowSize); }
+        this.packedGitWindowSize = packedGitWindowSize;
+    }
+
+    /**
+     * @return the maximum number of bytes of inflated delta bases cached per reader, null uses the JGit default
+     */
+    public Integer getDeltaBaseCacheLimit() {
+        return deltaBaseCacheLimit;
+    }
+
+    public void setDeltaBaseCacheLimit(Integer deltaBaseCacheLimit) {
+        if (deltaBaseCacheLimit != null && deltaBaseCacheLimit < 1) { throw new IllegalArgumentException("Delta base cache limit must be positive but was " + deltaBaseCacheLimit); }
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+    }
+
+    /**
+     * @return the maximum number of pack files JGit keeps open, null uses the JGit default
+     */
+    public Integer getPackedGitOpenFiles() {
+        return packedGitOpenFiles;
+    }
+
+    public void setPackedGitOpenFiles(Integer packedGitOpenFiles) {
+        if (packedGitOpenFiles != null && packedGitOpenFiles < 1) { throw new IllegalArgumentException("Packed git open files must be positive but was " + packedGitOpenFiles); }
+        this.packedGitOpenFiles = packedGitOpenFiles;
+    }
+
+    /**
+     * @return whether the windows of pack files are memory mapped instead of read into the heap, null uses the
+     * JGit default (not mapped)
+     */
+    public Boolean getPackedGitMmap() {
+        return packedGitMmap;
+    }
+
+    public void setPackedGitMmap(Boolean packedGitMmap) {
+        this.packedGitMmap = packedGitMmap;
+    }
+
+    /**
+     * @return whether one of the settings of JGit's window cache is given
+     */
+    public boolean hasWindowCacheSettings() {
+        return packedGitLimit != null || packedGitWindowSize != null || deltaBaseCacheLimit != null
+                || packedGitOpenFiles != null || packedGitMmap != null;
+    }
+
+    private static List<String> toPathGlobs(List<String> globs) {
+        if (globs == null) return Collections.emptyList();
+
+        List<String> pathGlobs = new ArrayList<>(globs.size());
+        for (String glob : globs) {
+            String trimmed = glob == null ? "" : glob.trim();
+            if (trimmed.isEmpty() || trimmed.replace("/", "").isEmpty()) { throw new IllegalArgumentException("Path glob must not be empty but was '" + glob + "'"); }
+            pathGlobs.add(trimmed);
+        }
+        return Collections.unmodifiableList(pathGlobs);
+    }
+}
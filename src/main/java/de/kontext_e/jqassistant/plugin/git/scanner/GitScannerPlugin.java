@@ -7,17 +7,25 @@ import com.buschmais.jqassistant.core.store.api.Store;
 import com.buschmais.jqassistant.plugin.common.api.model.FileDescriptor;
 import com.buschmais.jqassistant.plugin.common.api.scanner.AbstractScannerPlugin;
 import com.buschmais.jqassistant.plugin.common.api.scanner.filesystem.FileResource;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.RenameDetection;
 import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
+import org.eclipse.jgit.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getExistingRepositoryDescriptor;
 
@@ -30,9 +38,34 @@ public class GitScannerPlugin extends AbstractScannerPlugin<FileResource, GitRep
     private static final String PLUGIN_PROPERTY_PREFIX = "jqassistant.plugin.git.";
     private static final String GIT_RANGE = PLUGIN_PROPERTY_PREFIX + "range";
     private static final String SCAN_SUBMODULES = PLUGIN_PROPERTY_PREFIX + "scan-submodules";
-    private static final Set<String> scannedPaths = new HashSet<>();
+    private static final String COMMIT_BATCH_SIZE = PLUGIN_PROPERTY_PREFIX + "commit-batch-size";
+    private static final String DIFF_THREADS = PLUGIN_PROPERTY_PREFIX + "diff-threads";
+    private static final String COMMITS_PER_TRANSACTION = PLUGIN_PROPERTY_PREFIX + "commits-per-transaction";
+    private static final String REPOSITORY_THREADS = PLUGIN_PROPERTY_PREFIX + "repository-threads";
+    private static final String FILE_CACHE_SIZE = PLUGIN_PROPERTY_PREFIX + "file-cache-size";
+    private static final String IDENTITY_CACHE_SIZE = PLUGIN_PROPERTY_PREFIX + "identity-cache-size";
+    private static final String RENAME_LIMIT = PLUGIN_PROPERTY_PREFIX + "rename-limit";
+    private static final String RENAME_DETECTION_MAX_CHANGES = PLUGIN_PROPERTY_PREFIX + "rename-detection-max-changes";
+    private static final String RENAME_DETECTION_FALLBACK = PLUGIN_PROPERTY_PREFIX + "rename-detection-fallback";
+    private static final String RENAME_DETECTION_TIMEOUT = PLUGIN_PROPERTY_PREFIX + "rename-detection-timeout-ms";
+    private static final String MERGE_DIFF_MODE = PLUGIN_PROPERTY_PREFIX + "merge-diff-mode";
+    private static final String USE_COMMIT_GRAPH = PLUGIN_PROPERTY_PREFIX + "use-commit-graph";
+    private static final String WRITE_COMMIT_GRAPH = PLUGIN_PROPERTY_PREFIX + "write-commit-graph";
+    private static final String PROGRESS_INTERVAL = PLUGIN_PROPERTY_PREFIX + "progress-interval-seconds";
+    private static final String PROGRESS_COUNT_COMMITS = PLUGIN_PROPERTY_PREFIX + "progress-count-commits";
+    private static final String INCLUDE_PATHS = PLUGIN_PROPERTY_PREFIX + "include-paths";
+    private static final String EXCLUDE_PATHS = PLUGIN_PROPERTY_PREFIX + "exclude-paths";
+    private static final String PACKED_GIT_LIMIT = PLUGIN_PROPERTY_PREFIX + "packed-git-limit";
+    private static final String PACKED_GIT_WINDOW_SIZE = PLUGIN_PROPERTY_PREFIX + "packed-git-window-size";
+    private static final String DELTA_BASE_CACHE_LIMIT = PLUGIN_PROPERTY_PREFIX + "delta-base-cache-limit";
+    private static final String PACKED_GIT_OPEN_FILES = PLUGIN_PROPERTY_PREFIX + "packed-git-open-files";
+    private static final String PACKED_GIT_MMAP = PLUGIN_PROPERTY_PREFIX + "packed-git-mmap";
+    // accepted and scanned concurrently with their superproject, jQAssistant may offer them from several threads
+    private static final Set<String> scannedPaths = ConcurrentHashMap.newKeySet();
     private String range = null;
     private boolean scanSubmodules = false;
+    private final GitScannerConfiguration configuration = new GitScannerConfiguration();
+    private final List<ScanMetrics> scanMetrics = new CopyOnWriteArrayList<>();
 
 
     /*
@@ -102,10 +135,7 @@ public class GitScannerPlugin extends AbstractScannerPlugin<FileResource, GitRep
     private static boolean isNestedGitRepo(String pathToGitProject) {
         // in some maven project layouts, the .git repo is offered in every subproject
         // but needs to be imported only once
-        if (scannedPaths.contains(pathToGitProject)) return true;
-
-        scannedPaths.add(pathToGitProject);
-        return false;
+        return !scannedPaths.add(pathToGitProject);
     }
 
     @Override
@@ -124,16 +154,82 @@ public class GitScannerPlugin extends AbstractScannerPlugin<FileResource, GitRep
         } else {
             LOGGER.info("No previously scanned repository was found, creating new node ...");
             isFreshScan = true;
-            gitRepositoryDescriptor = store.addDescriptorType(fileDescriptor, GitRepositoryDescriptor.class);
-            initGitDescriptor(gitRepositoryDescriptor, item.getFile());
+            gitRepositoryDescriptor = createRepositoryDescriptor(store, fileDescriptor, item.getFile());
         }
-        JGitRepository jGitRepository = new JGitRepository(gitRepositoryDescriptor.getFileName());
+        JGitRepository jGitRepository = new JGitRepository(gitRepositoryDescriptor.getFileName(), configuration);
 
-        new GitRepositoryScanner(store, gitRepositoryDescriptor, range, jGitRepository, isFreshScan).scanGitRepo();
+        List<File> submodules = scanSubmodules && configuration.getRepositoryThreads() > 1
+                ? findSubmodulesToScan(item.getFile().getParentFile()) : Collections.emptyList();
+        if (submodules.isEmpty()) {
+            GitRepositoryScanner repositoryScanner = new GitRepositoryScanner(store, gitRepositoryDescriptor, range, jGitRepository, isFreshScan, configuration);
+            repositoryScanner.scanGitRepo();
+            scanMetrics.add(repositoryScanner.getMetrics());
+        } else {
+            ConcurrentRepositoryScan concurrentScan = new ConcurrentRepositoryScan(configuration.getRepositoryThreads());
+            concurrentScan.add(new GitRepositoryScanner(store, gitRepositoryDescriptor, range, jGitRepository, isFreshScan, configuration, concurrentScan.getStoreLane()));
+            for (File submodule : submodules) {
+                concurrentScan.add(createSubmoduleScanner(store, submodule, concurrentScan.getStoreLane()));
+            }
+            LOGGER.info("Scanning Git repository '{}' and #{} submodules with {} threads", gitRepositoryDescriptor.getFileName(), submodules.size(), configuration.getRepositoryThreads());
+            concurrentScan.scanAll();
+            scanMetrics.addAll(concurrentScan.getMetrics());
+        }
 
         return gitRepositoryDescriptor;
     }
 
+    /**
+     * @return the metrics of the repositories scanned by this plugin so far, in the order their scans finished
+     */
+    public List<ScanMetrics> getScanMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(scanMetrics));
+    }
+
+    /*
+     * The Git directories of the submodules are below .git/modules (nested submodules in the modules directory of
+     * their superproject). They are marked as scanned, so they are not accepted again when jQAssistant offers them.
+     */
+    private static List<File> findSubmodulesToScan(File gitDirectory) {
+        List<File> submodules = new ArrayList<>();
+        collectSubmodules(new File(gitDirectory, "modules"), submodules);
+        submodules.removeIf(submodule -> isNestedGitRepo(submodule.getAbsolutePath()));
+        return submodules;
+    }
+
+    private static void collectSubmodules(File directory, List<File> submodules) {
+        File[] children = directory.listFiles(File::isDirectory);
+        if (children == null) return;
+
+        Arrays.sort(children);
+        for (File child : children) {
+            if (new File(child, "HEAD").isFile() && new File(child, "objects").isDirectory()) {
+                submodules.add(child);
+                collectSubmodules(new File(child, "modules"), submodules);
+            } else {
+                // the name of a submodule may contain slashes
+                collectSubmodules(child, submodules);
+            }
+        }
+    }
+
+    private GitRepositoryScanner createSubmoduleScanner(Store store, File submodule, StoreLane storeLane) throws IOException {
+        GitRepositoryDescriptor submoduleDescriptor = getExistingRepositoryDescriptor(store, submodule.getAbsolutePath());
+        boolean isFreshScan = submoduleDescriptor == null;
+        if (isFreshScan) {
+            LOGGER.info("Accepted Git Submodule in '{}'", submodule.getAbsolutePath());
+            // the same node as if jQAssistant had offered the HEAD file of the submodule
+            submoduleDescriptor = createRepositoryDescriptor(store, store.create(FileDescriptor.class), new File(submodule, "HEAD"));
+        }
+        JGitRepository jGitRepository = new JGitRepository(submoduleDescriptor.getFileName(), configuration);
+        return new GitRepositoryScanner(store, submoduleDescriptor, range, jGitRepository, isFreshScan, configuration, storeLane);
+    }
+
+    private static GitRepositoryDescriptor createRepositoryDescriptor(Store store, FileDescriptor headDescriptor, File head) {
+        GitRepositoryDescriptor gitRepositoryDescriptor = store.addDescriptorType(headDescriptor, GitRepositoryDescriptor.class);
+        initGitDescriptor(gitRepositoryDescriptor, head);
+        return gitRepositoryDescriptor;
+    }
+
     static void initGitDescriptor(final GitRepositoryDescriptor gitRepositoryDescriptor, final File file) {
         final Path headPath = file.toPath().toAbsolutePath().normalize();
         LOGGER.debug ("Full path to Git directory HEAD is '{}'", headPath);
@@ -166,6 +262,51 @@ public class GitScannerPlugin extends AbstractScannerPlugin<FileResource, GitRep
         }
 
          scanSubmodules = getBooleanProperty(SCAN_SUBMODULES, false);
+         configuration.setCommitBatchSize(getIntegerProperty(COMMIT_BATCH_SIZE, GitScannerConfiguration.DEFAULT_COMMIT_BATCH_SIZE));
+         configuration.setDiffThreads(getIntegerProperty(DIFF_THREADS, GitScannerConfiguration.DEFAULT_DIFF_THREADS));
+         configuration.setCommitsPerTransaction(getIntegerProperty(COMMITS_PER_TRANSACTION, GitScannerConfiguration.DEFAULT_COMMITS_PER_TRANSACTION));
+         configuration.setRepositoryThreads(getIntegerProperty(REPOSITORY_THREADS, GitScannerConfiguration.DEFAULT_REPOSITORY_THREADS));
+         configuration.setFileCacheSize(getIntegerProperty(FILE_CACHE_SIZE, GitScannerConfiguration.DEFAULT_FILE_CACHE_SIZE));
+         configuration.setIdentityCacheSize(getIntegerProperty(IDENTITY_CACHE_SIZE, GitScannerConfiguration.DEFAULT_IDENTITY_CACHE_SIZE));
+         configuration.setRenameLimit(getIntegerProperty(RENAME_LIMIT, null));
+         configuration.setRenameDetectionMaxChanges(getIntegerProperty(RENAME_DETECTION_MAX_CHANGES, GitScannerConfiguration.DEFAULT_RENAME_DETECTION_MAX_CHANGES));
+         String renameDetectionFallback = getStringProperty(RENAME_DETECTION_FALLBACK, GitScannerConfiguration.DEFAULT_RENAME_DETECTION_FALLBACK.name());
+         configuration.setRenameDetectionFallback(RenameDetection.valueOf(renameDetectionFallback.toUpperCase(Locale.ROOT)));
+         configuration.setRenameDetectionTimeout(getIntegerProperty(RENAME_DETECTION_TIMEOUT, GitScannerConfiguration.DEFAULT_RENAME_DETECTION_TIMEOUT));
+         configuration.setUseCommitGraph(getBooleanProperty(USE_COMMIT_GRAPH, true));
+         configuration.setWriteCommitGraph(getBooleanProperty(WRITE_COMMIT_GRAPH, false));
+         configuration.setProgressInterval(getIntegerProperty(PROGRESS_INTERVAL, GitScannerConfiguration.DEFAULT_PROGRESS_INTERVAL));
+         configuration.setProgressCountCommits(getBooleanProperty(PROGRESS_COUNT_COMMITS, false));
+         configuration.setMergeDiffMode(MergeDiffMode.fromProperty(getStringProperty(MERGE_DIFF_MODE, "all-parents")));
+         configuration.setIncludePaths(toPathGlobs(getStringProperty(INCLUDE_PATHS, "")));
+         configuration.setExcludePaths(toPathGlobs(getStringProperty(EXCLUDE_PATHS, "")));
+         configuration.setPackedGitLimit(toSize(getStringProperty(PACKED_GIT_LIMIT, null)));
+         Long packedGitWindowSize = toSize(getStringProperty(PACKED_GIT_WINDOW_SIZE, null));
+         configuration.setPackedGitWindowSize(packedGitWindowSize != null ? Math.toIntExact(packedGitWindowSize) : null);
+         Long deltaBaseCacheLimit = toSize(getStringProperty(DELTA_BASE_CACHE_LIMIT, null));
+         configuration.setDeltaBaseCacheLimit(deltaBaseCacheLimit != null ? Math.toIntExact(deltaBaseCacheLimit) : null);
+         configuration.setPackedGitOpenFiles(getIntegerProperty(PACKED_GIT_OPEN_FILES, null));
+         String packedGitMmap = getStringProperty(PACKED_GIT_MMAP, null);
+         configuration.setPackedGitMmap(packedGitMmap != null ? Boolean.valueOf(packedGitMmap.trim()) : null);
+    }
+
+    /*
+     * Sizes in bytes may have the suffix k, m or g like in the Git configuration, e.g. 512m.
+     */
+    private static Long toSize(String property) {
+        if (property == null || property.trim().isEmpty()) return null;
+
+        return StringUtils.parseLongWithSuffix(property.trim(), false);
+    }
+
+    private static List<String> toPathGlobs(String property) {
+        List<String> globs = new ArrayList<>();
+        for (String glob : property.split(",")) {
+            if (!glob.trim().isEmpty()) {
+                globs.add(glob.trim());
+            }
+        }
+        return globs;
     }
 
     private void setRange (String range) {
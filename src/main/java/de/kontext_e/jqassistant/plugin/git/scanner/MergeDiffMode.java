@@ -0,0 +1,24 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import java.util.Locale;
+
+/**
+ * Against which parents the changes of a merge commit are computed.
+ */
+public enum MergeDiffMode {
+    /** Changes against every parent */
+    ALL_PARENTS,
+    /** Only the changes against the first parent, i.e. what the merge brought into the target branch */
+    FIRST_PARENT,
+    /** No changes for merge commits */
+    NONE,
+    /** Only changes of paths which differ from every parent (like git's combined diff), usually conflict resolutions */
+    COMBINED;
+
+    /**
+     * @param value the property value, e.g. <code>first-parent</code>
+     */
+    public static MergeDiffMode fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,140 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.cache.CacheStatistics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The durations of the phases and the counters of the scan of one repository.
+ *
+ * The commits are walked and diffed while the previous batch is stored, so {@link Phase#WALK} and
+ * {@link Phase#STORE_COMMITS} overlap: the walk does not include the time spent waiting for the store, a walk much
+ * shorter than the commit store phase means that the store is the bottleneck. Lookups in the store are part of the
+ * store phases, their latencies are reported per cache.
+ */
+public final class ScanMetrics {
+
+    public enum Phase {
+        /** looking up already stored heads and the checkpoint of an interrupted scan */
+        PREPARE,
+        /** walking and diffing the commits with JGit */
+        WALK,
+        /**
+         * storing the commits, their changes and files and adding the authors, committers and files to the
+         * repository, including the lookups of already stored nodes
+         */
+        STORE_COMMITS,
+        STORE_BRANCHES,
+        STORE_TAGS,
+        ADJUST_GIT_HEAD
+    }
+
+    private final String repository;
+    private final Duration duration;
+    private final Map<Phase, Duration> phases;
+    private final long walkedCommits;
+    private final long storedCommits;
+    private final long diffEntries;
+    private final long storeCreates;
+    private final List<CacheStatistics> caches;
+
+    ScanMetrics(String repository, Duration duration, Map<Phase, Duration> phases, long walkedCommits,
+                long storedCommits, long diffEntries, long storeCreates, List<CacheStatistics> caches) {
+        this.repository = repository;
+        this.duration = duration;
+        this.phases = Collections.unmodifiableMap(new EnumMap<>(phases));
+        this.walkedCommits = walkedCommits;
+        this.storedCommits = storedCommits;
+        this.diffEntries = diffEntries;
+        this.storeCreates = storeCreates;
+        this.caches = List.copyOf(caches);
+    }
+
+    /**
+     * @return the file name of the repository
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the durations of the phases in the order they are run
+     */
+    public Map<Phase, Duration> getPhases() {
+        return phases;
+    }
+
+    public Duration getPhase(Phase phase) {
+        return phases.getOrDefault(phase, Duration.ZERO);
+    }
+
+    public long getWalkedCommits() {
+        return walkedCommits;
+    }
+
+    /**
+     * @return the walked commits which were not stored before
+     */
+    public long getStoredCommits() {
+        return storedCommits;
+    }
+
+    /**
+     * @return the number of changes of the walked commits
+     */
+    public long getDiffEntries() {
+        return diffEntries;
+    }
+
+    /**
+     * @return the number of nodes created for commits, changes, authors, committers and files
+     */
+    public long getStoreCreates() {
+        return storeCreates;
+    }
+
+    /**
+     * @return the statistics of the commit, author, committer and file caches
+     */
+    public List<CacheStatistics> getCaches() {
+        return caches;
+    }
+
+    /**
+     * @return the stored commits per second of the commit store phase
+     */
+    public double getCommitsPerSecond() {
+        return perSecond(storedCommits, getPhase(Phase.STORE_COMMITS));
+    }
+
+    /**
+     * @return the diff entries per second of the walk
+     */
+    public double getDiffEntriesPerSecond() {
+        return perSecond(diffEntries, getPhase(Phase.WALK));
+    }
+
+    private static double perSecond(long count, Duration duration) {
+        return duration.isZero() ? 0 : count * 1e9 / duration.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder phaseDurations = new StringBuilder();
+        phases.forEach((phase, phaseDuration) -> phaseDurations.append(phaseDurations.length() > 0 ? ", " : "")
+                .append(phase.name().toLowerCase(Locale.ROOT)).append(' ').append(phaseDuration.toMillis()).append(" ms"));
+        return String.format("Scanned Git repository '%s' in %d ms (%s): #%d commits walked, #%d stored (%.0f/s), " +
+                        "#%d diff entries (%.0f/s), #%d nodes created",
+                repository, duration.toMillis(), phaseDurations, walkedCommits, storedCommits, getCommitsPerSecond(),
+                diffEntries, getDiffEntriesPerSecond(), storeCreates);
+    }
+}
@@ -0,0 +1,116 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs the progress of a long commit walk at info level, at most once per interval: the commits done (walked and
+ * stored) out of the estimated total, the rate since the previous report and the estimated time until all commits
+ * are stored. The ETA is based on the rate since the start, the rate of a single interval varies too much with the
+ * size of the commits. Without an estimated total only the commits done and the rate are reported.
+ *
+ * The walk and the store report from different threads, the progress is only reported when one of them has
+ * finished a batch.
+ */
+final class ScanProgress {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanProgress.class);
+
+    private final String repository;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+
+    private long total = -1;
+    private long resumedAt;
+    private long walked;
+    private long stored;
+    private long startNanos;
+    private long lastReportNanos;
+    private long storedAtLastReport;
+
+    ScanProgress(String repository, Duration interval) {
+        this(repository, interval, System::nanoTime);
+    }
+
+    ScanProgress(String repository, Duration interval, LongSupplier nanoClock) {
+        this.repository = repository;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    boolean isEnabled() {
+        return intervalNanos > 0;
+    }
+
+    /**
+     * @param estimatedTotal the estimated number of commits of the walk, negative if unknown
+     * @param alreadyDone the commits stored by an interrupted scan which are skipped
+     */
+    synchronized void start(long estimatedTotal, long alreadyDone) {
+        total = estimatedTotal;
+        resumedAt = alreadyDone;
+        walked = alreadyDone;
+        stored = alreadyDone;
+        storedAtLastReport = alreadyDone;
+        startNanos = nanoClock.getAsLong();
+        lastReportNanos = startNanos;
+    }
+
+    synchronized void walked(int commits) {
+        walked += commits;
+        reportIfDue();
+    }
+
+    synchronized void stored(int commits) {
+        stored += commits;
+        reportIfDue();
+    }
+
+    private void reportIfDue() {
+        if (!isEnabled()) return;
+
+        long now = nanoClock.getAsLong();
+        if (now - lastReportNanos < intervalNanos) return;
+
+        LOGGER.info(describe(now));
+        lastReportNanos = now;
+        storedAtLastReport = stored;
+    }
+
+    synchronized String describe(long now) {
+        double rate = perSecond(stored - storedAtLastReport, now - lastReportNanos);
+        double averageRate = perSecond(stored - resumedAt, now - startNanos);
+        StringBuilder description = new StringBuilder("Scanning Git repository '").append(repository).append("': #").append(stored);
+        if (total >= 0) {
+            description.append(" of ~#").append(total);
+        }
+        description.append(" commits stored");
+        if (total > 0) {
+            description.append(String.format(Locale.ROOT, " (%.1f%%)", Math.min(100.0, 100.0 * stored / total)));
+        }
+        description.append(", #").append(walked).append(" walked, ").append(String.format(Locale.ROOT, "%.0f commits/s", rate));
+        if (total >= 0 && averageRate > 0) {
+            long remainingSeconds = (long) Math.ceil(Math.max(0, total - stored) / averageRate);
+            description.append(", ETA ").append(format(Duration.ofSeconds(remainingSeconds)));
+        }
+        return description.toString();
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos > 0 ? count * 1e9 / nanos : 0;
+    }
+
+    private static String format(Duration duration) {
+        if (duration.toHours() > 0) {
+            return String.format("%dh %02dm %02ds", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+        }
+        if (duration.toMinutes() > 0) {
+            return String.format("%dm %02ds", duration.toMinutes(), duration.toSecondsPart());
+        }
+        return duration.getSeconds() + "s";
+    }
+}
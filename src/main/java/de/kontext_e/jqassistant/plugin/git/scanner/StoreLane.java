@@ -0,0 +1,109 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the store work of repository scans on the thread which owns the store transaction.
+ *
+ * The store and its transaction are bound to the thread calling the scanner plugin. When several repositories are
+ * scanned concurrently, their JGit work runs on worker threads which hand their store work over to the lane, and the
+ * owning thread executes it in submission order while it waits for the scans in {@link #runUntilDone(List)}.
+ * The {@link #DIRECT} lane runs the store work immediately on the calling thread.
+ */
+class StoreLane {
+
+    static final StoreLane DIRECT = new StoreLane(null);
+
+    interface StoreAction {
+        void run() throws IOException;
+    }
+
+    interface StoreTask<T> {
+        T call() throws IOException;
+    }
+
+    private final BlockingQueue<FutureTask<?>> tasks;
+
+    private StoreLane(BlockingQueue<FutureTask<?>> tasks) {
+        this.tasks = tasks;
+    }
+
+    static StoreLane concurrent() {
+        return new StoreLane(new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Hands the action over to the owning thread without waiting for it.
+     */
+    Future<?> submit(StoreAction action) {
+        return submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    <T> Future<T> submit(StoreTask<T> task) {
+        if (tasks == null) {
+            try {
+                return CompletableFuture.completedFuture(task.call());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        FutureTask<T> futureTask = new FutureTask<>(task::call);
+        tasks.add(futureTask);
+        return futureTask;
+    }
+
+    void run(StoreAction action) throws IOException {
+        await(submit(action));
+    }
+
+    <T> T call(StoreTask<T> task) throws IOException {
+        return await(submit(task));
+    }
+
+    /**
+     * Executes the handed over store work on the calling (owning) thread until all scans are done.
+     */
+    void runUntilDone(List<? extends Future<?>> scans) throws IOException {
+        try {
+            while (!scans.stream().allMatch(Future::isDone)) {
+                FutureTask<?> task = tasks.poll(50, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            }
+            for (FutureTask<?> task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while storing Git repositories");
+        }
+    }
+
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the store");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            if (e.getCause() instanceof Error) { throw (Error) e.getCause(); }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
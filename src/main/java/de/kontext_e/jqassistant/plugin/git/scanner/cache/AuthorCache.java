@@ -2,74 +2,55 @@ package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitAuthorDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getAuthorDescriptorFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getAuthorDescriptorsFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getRepositoryAuthorDescriptorsFromDB;
 
-public class AuthorCache {
+public class AuthorCache extends IdentityCache<GitAuthorDescriptor> {
 
-
-    private final Map<String, GitAuthorDescriptor> authors = new HashMap<>();
-    private final Store store;
-    private final boolean isFreshScan;
-
-    public AuthorCache(final Store store, boolean isFreshScan) {
-        this.store = store;
-        this.isFreshScan = isFreshScan;
+    public AuthorCache(final Store store, GitRepositoryDescriptor repository, boolean isFreshScan) {
+        this(store, repository, isFreshScan, 0);
     }
 
-    public List<GitAuthorDescriptor> getAuthors() {
-        return new ArrayList<>(authors.values());
+    /**
+     * @param capacity the maximum number of cached authors, 0 for no limit
+     */
+    public AuthorCache(final Store store, GitRepositoryDescriptor repository, boolean isFreshScan, int capacity) {
+        super("Author", store, repository, isFreshScan, capacity);
     }
 
-    public GitAuthorDescriptor findOrCreate(final String identString) {
-        GitAuthorDescriptor authorDescriptor = find(identString);
-        if (authorDescriptor != null) {
-            return authorDescriptor;
-        }
-        return createAuthorDescriptor(identString);
+    @Override
+    Class<GitAuthorDescriptor> type() {
+        return GitAuthorDescriptor.class;
     }
 
-    public GitAuthorDescriptor find(final String identString) {
-        if (authors.containsKey(identString)) {
-            return authors.get(identString);
-        } else {
-            if (isFreshScan) return null;
-            GitAuthorDescriptor authorDescriptor = getAuthorDescriptorFromDB(store, identString);
-            if (authorDescriptor != null) {
-                addToCache(authorDescriptor);
-            }
-            return authorDescriptor;
-        }
+    @Override
+    void setIdentString(GitAuthorDescriptor author, String identString) {
+        author.setIdentString(identString);
     }
 
-    private void addToCache(final GitAuthorDescriptor author) {
-        authors.put(author.getIdentString(), author);
+    @Override
+    GitAuthorDescriptor findInStore(Store store, String identString) {
+        return getAuthorDescriptorFromDB(store, identString);
     }
 
-    private GitAuthorDescriptor createAuthorDescriptor(String identString) {
-        if (identString == null) { throw new IllegalArgumentException("Authors' identity String is null"); }
-        GitAuthorDescriptor gitAuthor = store.create(GitAuthorDescriptor.class);
-
-        gitAuthor.setIdentString(identString);
-        gitAuthor.setName(nameFrom(identString));
-        gitAuthor.setEmail(emailFrom(identString));
-
-        addToCache(gitAuthor);
-        return gitAuthor;
+    @Override
+    Map<String, GitAuthorDescriptor> findAllInStore(Store store, Collection<String> identStrings) {
+        return getAuthorDescriptorsFromDB(store, identStrings);
     }
 
-    private String emailFrom(String author) {
-        return author.substring(author.indexOf("<")+1, author.indexOf(">")).trim();
+    @Override
+    Map<String, GitAuthorDescriptor> findAllOfRepository(Store store, GitRepositoryDescriptor repository, Collection<String> identStrings) {
+        return getRepositoryAuthorDescriptorsFromDB(store, repository, identStrings);
     }
 
-    private String nameFrom(String author) {
-        return author.substring(0, author.indexOf("<")).trim();
+    @Override
+    void addToRepository(GitRepositoryDescriptor repository, GitAuthorDescriptor author) {
+        repository.getAuthors().add(author);
     }
-
-
 }
@@ -3,10 +3,13 @@ package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitBranch;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitBranchDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitDescriptor;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.importExistingBranchesFromStore;
@@ -16,9 +19,11 @@ public class BranchCache {
     private final Logger LOGGER = LoggerFactory.getLogger(BranchCache.class);
     private final Map<String, GitBranchDescriptor> branches;
     private final Store store;
+    private final GitRepositoryDescriptor gitRepositoryDescriptor;
 
     public BranchCache(Store store, GitRepositoryDescriptor gitRepositoryDescriptor) {
         this.store = store;
+        this.gitRepositoryDescriptor = gitRepositoryDescriptor;
         this.branches = importExistingBranchesFromStore(store, gitRepositoryDescriptor);
     }
 
@@ -44,12 +49,26 @@ public class BranchCache {
         return null;
     }
 
+    /**
+     * @return the head commits of the branches which have been stored by a previous scan
+     */
+    public List<GitCommitDescriptor> getStoredHeads() {
+        List<GitCommitDescriptor> heads = new ArrayList<>();
+        for (GitBranchDescriptor branch : branches.values()) {
+            if (branch.getHead() != null) {
+                heads.add(branch.getHead());
+            }
+        }
+        return heads;
+    }
+
     private GitBranchDescriptor createBranchDescriptor(GitBranch gitBranch, String name) {
         LOGGER.debug ("Adding new Branch '{}' with Head '{}'", name, gitBranch.getCommitSha());
         GitBranchDescriptor gitBranchDescriptor = store.create(GitBranchDescriptor.class);
 
         String sha = gitBranch.getCommitSha();
         gitBranchDescriptor.setName(name);
+        gitRepositoryDescriptor.getBranches().add(gitBranchDescriptor);
 
         branches.put(name, gitBranchDescriptor);
         return gitBranchDescriptor;
@@ -0,0 +1,83 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.LatencyHistogram;
+
+/**
+ * The hit, miss and eviction counters of a descriptor cache, to size it for a repository, with the number of
+ * descriptors it created and the latencies of its lookups in the store.
+ */
+public final class CacheStatistics {
+
+    private final String name;
+    private final int capacity;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long creates;
+    private final LatencyHistogram lookups;
+
+    CacheStatistics(String name, int capacity, int size, long hits, long misses, long evictions, long creates, LatencyHistogram lookups) {
+        this.name = name;
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.creates = creates;
+        this.lookups = lookups.snapshot();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the maximum number of cached descriptors, 0 if the cache is unbounded
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which were not cached, they were looked up in the store or created
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of descriptors created in the store
+     */
+    public long getCreates() {
+        return creates;
+    }
+
+    /**
+     * @return the latencies of the queries for descriptors which were not cached, a bulk query counts once
+     */
+    public LatencyHistogram getLookups() {
+        return lookups;
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        String statistics = String.format("%s cache: %d of %s cached, %d hits, %d misses (%.1f%% hits), %d evictions, %d creates",
+                name, size, capacity > 0 ? String.valueOf(capacity) : "unbounded", hits, misses,
+                lookups > 0 ? 100.0 * hits / lookups : 0.0, evictions, creates);
+        return this.lookups.getCount() > 0 ? statistics + ", store lookups " + this.lookups : statistics;
+    }
+}
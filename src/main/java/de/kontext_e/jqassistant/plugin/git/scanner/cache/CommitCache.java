@@ -2,56 +2,220 @@ package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.LatencyHistogram;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.TimestampFormatter;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitDescriptor;
+import org.eclipse.jgit.lib.ObjectId;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getCommitDescriptorFromDB;
-import static de.kontext_e.jqassistant.plugin.git.scanner.utils.TimeAndDateFormats.DATE_FORMAT;
-import static de.kontext_e.jqassistant.plugin.git.scanner.utils.TimeAndDateFormats.TIME_FORMAT;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getCommitDescriptorsFromDB;
 
+/**
+ * The commit descriptors of a scan by SHA.
+ *
+ * Only the node ids of the commits are kept, in a primitive {@link CommitIndex}, and their descriptors are
+ * materialized from the store on demand. The descriptors materialized while storing a batch are held until
+ * {@link #releaseDescriptors()}, so relations within a batch do not look them up again. SHAs which are not object ids
+ * and descriptors whose id is not a number (e.g. of other stores) are held as they are.
+ */
 public class CommitCache {
 
+    private final CommitIndex index = new CommitIndex();
+    private final Map<String, GitCommitDescriptor> materialized = new HashMap<>();
     private final Map<String, GitCommitDescriptor> commits = new HashMap<>();
+    // keys which are known to have no node in the store (yet) and are not in the index
+    private final Set<String> notInStore = new HashSet<>();
     private final Store store;
     private final boolean isFreshScan;
+    private final LatencyHistogram lookups = new LatencyHistogram();
+    private long hits;
+    private long misses;
+    private long creates;
 
     public CommitCache(final Store store, boolean isFreshScan) {
         this.store = store;
         this.isFreshScan = isFreshScan;
     }
 
+    /**
+     * Looks up the commits of the given SHAs which are neither cached nor known to be missing with a single UNWIND
+     * query. SHAs without a commit node are marked in the index, so the scanner creates their commits without asking
+     * the store again.
+     */
+    public void preload(final Collection<String> shas) {
+        if (isFreshScan) return;
+
+        Set<String> unresolved = new LinkedHashSet<>();
+        for (String sha : shas) {
+            if (sha == null) continue;
+
+            ObjectId id = toObjectId(sha);
+            if (!isCached(id, sha) && !isNotInStore(id, sha)) {
+                unresolved.add(sha);
+            }
+        }
+        if (unresolved.isEmpty()) return;
+
+        long start = System.nanoTime();
+        Map<String, GitCommitDescriptor> descriptors = getCommitDescriptorsFromDB(store, unresolved);
+        lookups.record(System.nanoTime() - start);
+        for (String sha : unresolved) {
+            GitCommitDescriptor descriptor = descriptors.get(sha);
+            if (descriptor != null) {
+                addToCache(descriptor);
+            } else {
+                markNotInStore(toObjectId(sha), sha);
+            }
+        }
+    }
+
     public void addToCache(final GitCommitDescriptor commit) {
-        commits.put(commit.getSha(), commit);
+        String sha = commit.getSha();
+        addToCache(toObjectId(sha), sha, commit);
+    }
+
+    private void addToCache(ObjectId id, String sha, GitCommitDescriptor commit) {
+        Object nodeId = commit.getId();
+        if (id != null && nodeId instanceof Long) {
+            index.put(id, (Long) nodeId);
+            materialized.put(sha, commit);
+        } else {
+            commits.put(sha, commit);
+            notInStore.remove(sha);
+        }
     }
 
     public GitCommitDescriptor get(final String sha) {
-        if (commits.containsKey(sha)) {
-            return commits.get(sha);
+        return get(toObjectId(sha), sha);
+    }
+
+    /**
+     * Like {@link #get(String)}, but looks the commit up by its object id without parsing its SHA.
+     */
+    public GitCommitDescriptor get(final GitCommit commit) {
+        return get(commit.getId(), commit.getSha());
+    }
+
+    private GitCommitDescriptor get(ObjectId id, String sha) {
+        GitCommitDescriptor cached = getCached(id, sha);
+        if (cached != null) {
+            return cached;
         } else {
-            if (isFreshScan) return null;
+            if (isFreshScan || isNotInStore(id, sha)) return null;
+            long start = System.nanoTime();
             GitCommitDescriptor commitDescriptor = getCommitDescriptorFromDB(store, sha);
+            lookups.record(System.nanoTime() - start);
             if (commitDescriptor != null) {
-                addToCache(commitDescriptor);
+                addToCache(id, sha, commitDescriptor);
+            } else {
+                markNotInStore(id, sha);
             }
             return commitDescriptor;
         }
     }
 
+    /**
+     * Like {@link #get(String)}, but never falls back to a lookup in the store by SHA.
+     */
+    public GitCommitDescriptor getCached(final String sha) {
+        return getCached(toObjectId(sha), sha);
+    }
+
+    /**
+     * Like {@link #get(GitCommit)}, but never falls back to a lookup in the store by SHA.
+     */
+    public GitCommitDescriptor getCached(final GitCommit commit) {
+        return getCached(commit.getId(), commit.getSha());
+    }
+
+    private GitCommitDescriptor getCached(ObjectId id, String sha) {
+        GitCommitDescriptor descriptor = materialized.get(sha);
+        if (descriptor == null) {
+            long nodeId = id != null ? index.get(id) : CommitIndex.UNKNOWN;
+            if (nodeId >= 0) {
+                descriptor = store.getXOManager().findById(GitCommitDescriptor.class, nodeId);
+                materialized.put(sha, descriptor);
+            } else {
+                descriptor = commits.get(sha);
+            }
+        }
+        if (descriptor != null) { hits++; } else { misses++; }
+        return descriptor;
+    }
+
+    /**
+     * @return true if the commit is known to be stored, without materializing its descriptor
+     */
+    public boolean isCached(final String sha) {
+        return isCached(toObjectId(sha), sha);
+    }
+
+    /**
+     * Like {@link #isCached(String)}, but looks the commit up by its object id without parsing its SHA.
+     */
+    public boolean isCached(final GitCommit commit) {
+        return isCached(commit.getId(), commit.getSha());
+    }
+
+    private boolean isCached(ObjectId id, String sha) {
+        return id != null ? index.get(id) >= 0 : commits.containsKey(sha);
+    }
+
+    /**
+     * @return the counters of the cache, it is unbounded and never evicts commits
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics("Commit", 0, index.size() + commits.size(), hits, misses, 0, creates, lookups);
+    }
+
+    /**
+     * Drops the materialized descriptors, they are looked up by their node id again when needed.
+     */
+    public void releaseDescriptors() {
+        materialized.clear();
+    }
+
+    private static ObjectId toObjectId(String sha) {
+        return ObjectId.isId(sha) ? ObjectId.fromString(sha) : null;
+    }
+
+    private boolean isNotInStore(ObjectId id, String sha) {
+        return id != null ? index.get(id) == CommitIndex.NOT_IN_STORE : notInStore.contains(sha);
+    }
+
+    private void markNotInStore(ObjectId id, String sha) {
+        if (id != null) {
+            index.put(id, CommitIndex.NOT_IN_STORE);
+        } else {
+            notInStore.add(sha);
+        }
+    }
+
     public GitCommitDescriptor createDescriptorForCommit(GitCommit gitCommit) {
         GitCommitDescriptor gitCommitDescriptor = store.create(GitCommitDescriptor.class);
         gitCommitDescriptor.setSha(gitCommit.getSha());
         gitCommitDescriptor.setAuthor(gitCommit.getAuthor());
         gitCommitDescriptor.setCommitter(gitCommit.getCommitter());
-        gitCommitDescriptor.setDate(DATE_FORMAT.format(gitCommit.getDate()));
+        gitCommitDescriptor.setDate(TimestampFormatter.DEFAULT.formatDate(gitCommit.getDate()));
         gitCommitDescriptor.setMessage(gitCommit.getMessage());
         gitCommitDescriptor.setShortMessage(gitCommit.getShortMessage());
         gitCommitDescriptor.setEpoch(gitCommit.getDate().getTime());
-        gitCommitDescriptor.setTime(TIME_FORMAT.format(gitCommit.getDate()));
+        gitCommitDescriptor.setTime(TimestampFormatter.DEFAULT.formatTime(gitCommit.getDate()));
         gitCommitDescriptor.setEncoding(gitCommit.getEncoding());
+        if (gitCommit.getRenameDetection() != null) {
+            gitCommitDescriptor.setRenameDetection(gitCommit.getRenameDetection().name().toLowerCase(Locale.ROOT));
+        }
 
-        addToCache(gitCommitDescriptor);
+        addToCache(gitCommit.getId(), gitCommit.getSha(), gitCommitDescriptor);
+        creates++;
 
         return gitCommitDescriptor;
     }
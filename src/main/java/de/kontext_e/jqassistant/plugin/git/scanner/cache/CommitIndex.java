@@ -0,0 +1,101 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+
+import java.util.Arrays;
+
+/**
+ * Maps the binary SHA of commits to the id of their node in the store.
+ *
+ * Open addressing with linear probing over primitive arrays: an entry takes the five words of the SHA and the
+ * node id, about 37 bytes at the maximum load, so the index of a history with millions of commits fits into a
+ * fixed heap. Not safe for use by several threads.
+ */
+final class CommitIndex {
+
+    /**
+     * Returned for SHAs which are not in the index.
+     */
+    static final long UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * Marks SHAs which are known to have no node in the store (yet). Node ids are never negative.
+     */
+    static final long NOT_IN_STORE = -1L;
+
+    private static final int WORDS = 5;
+
+    private int[] shas;
+    private long[] nodeIds;
+    private int size;
+    private final int[] scratch = new int[WORDS];
+
+    CommitIndex() {
+        allocate(1024);
+    }
+
+    long get(AnyObjectId sha) {
+        sha.copyRawTo(scratch, 0);
+        int slot = find(scratch, nodeIds.length - 1);
+        return nodeIds[slot];
+    }
+
+    void put(AnyObjectId sha, long nodeId) {
+        sha.copyRawTo(scratch, 0);
+        int slot = find(scratch, nodeIds.length - 1);
+        if (nodeIds[slot] == UNKNOWN) {
+            System.arraycopy(scratch, 0, shas, slot * WORDS, WORDS);
+            size++;
+        }
+        nodeIds[slot] = nodeId;
+        // keep the load factor below 3/4
+        if (size * 4 > nodeIds.length * 3) {
+            rehash(nodeIds.length * 2);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /*
+     * The slot of the SHA, or the free slot it would be put into.
+     */
+    private int find(int[] sha, int mask) {
+        // the words of a SHA are uniformly distributed, the second one is as good a hash as JGit's
+        for (int slot = sha[1] & mask; ; slot = (slot + 1) & mask) {
+            if (nodeIds[slot] == UNKNOWN || equalsAt(slot, sha)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean equalsAt(int slot, int[] sha) {
+        int offset = slot * WORDS;
+        for (int i = 0; i < WORDS; i++) {
+            if (shas[offset + i] != sha[i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldShas = shas;
+        long[] oldNodeIds = nodeIds;
+        allocate(capacity);
+        int[] sha = new int[WORDS];
+        for (int oldSlot = 0; oldSlot < oldNodeIds.length; oldSlot++) {
+            if (oldNodeIds[oldSlot] == UNKNOWN) continue;
+
+            System.arraycopy(oldShas, oldSlot * WORDS, sha, 0, WORDS);
+            int slot = find(sha, capacity - 1);
+            System.arraycopy(sha, 0, shas, slot * WORDS, WORDS);
+            nodeIds[slot] = oldNodeIds[oldSlot];
+        }
+    }
+
+    private void allocate(int capacity) {
+        shas = new int[capacity * WORDS];
+        nodeIds = new long[capacity];
+        Arrays.fill(nodeIds, UNKNOWN);
+    }
+}
@@ -2,71 +2,55 @@ package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitterDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getCommitterDescriptorFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getCommitterDescriptorsFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getRepositoryCommitterDescriptorsFromDB;
 
-public class CommitterCache {
+public class CommitterCache extends IdentityCache<GitCommitterDescriptor> {
 
-    private final Map<String, GitCommitterDescriptor> committers = new HashMap<>();
-    private final Store store;
-    private final boolean isFreshScan;
-
-    public CommitterCache(final Store store, boolean isFreshScan) {
-        this.store = store;
-        this.isFreshScan = isFreshScan;
+    public CommitterCache(final Store store, GitRepositoryDescriptor repository, boolean isFreshScan) {
+        this(store, repository, isFreshScan, 0);
     }
 
-    public GitCommitterDescriptor findOrCreate(final String identString) {
-        GitCommitterDescriptor committerDescriptor = find(identString);
-        if (committerDescriptor != null) {
-            return committerDescriptor;
-        }
-        return createCommitterDescriptor(identString);
+    /**
+     * @param capacity the maximum number of cached committers, 0 for no limit
+     */
+    public CommitterCache(final Store store, GitRepositoryDescriptor repository, boolean isFreshScan, int capacity) {
+        super("Committer", store, repository, isFreshScan, capacity);
     }
 
-    public List<GitCommitterDescriptor> getCommitters(){
-        return new LinkedList<>(committers.values());
+    @Override
+    Class<GitCommitterDescriptor> type() {
+        return GitCommitterDescriptor.class;
     }
 
-    public GitCommitterDescriptor find(final String identString) {
-        if (committers.containsKey(identString)) {
-            return committers.get(identString);
-        } else {
-            if (isFreshScan) return null;
-            GitCommitterDescriptor committerDescriptor = getCommitterDescriptorFromDB(store, identString);
-            if (committerDescriptor != null) {
-                addToCache(committerDescriptor);
-            }
-            return committerDescriptor;
-        }
+    @Override
+    void setIdentString(GitCommitterDescriptor committer, String identString) {
+        committer.setIdentString(identString);
     }
 
-    private void addToCache(final GitCommitterDescriptor committer){
-        committers.put(committer.getIdentString(), committer);
+    @Override
+    GitCommitterDescriptor findInStore(Store store, String identString) {
+        return getCommitterDescriptorFromDB(store, identString);
     }
 
-    private GitCommitterDescriptor createCommitterDescriptor(final String identString) {
-        if (identString == null) { throw new IllegalArgumentException("Committers' identity string is Null"); }
-        GitCommitterDescriptor committerDescriptor = store.create(GitCommitterDescriptor.class);
-
-        committerDescriptor.setIdentString(identString);
-        committerDescriptor.setName(nameFrom(identString));
-        committerDescriptor.setEmail(emailFrom(identString));
-
-        addToCache(committerDescriptor);
-        return committerDescriptor;
+    @Override
+    Map<String, GitCommitterDescriptor> findAllInStore(Store store, Collection<String> identStrings) {
+        return getCommitterDescriptorsFromDB(store, identStrings);
     }
 
-    private String emailFrom(String author) {
-        return author.substring(author.indexOf("<")+1, author.indexOf(">")).trim();
+    @Override
+    Map<String, GitCommitterDescriptor> findAllOfRepository(Store store, GitRepositoryDescriptor repository, Collection<String> identStrings) {
+        return getRepositoryCommitterDescriptorsFromDB(store, repository, identStrings);
     }
 
-    private String nameFrom(String author) {
-        return author.substring(0, author.indexOf("<")).trim();
+    @Override
+    void addToRepository(GitRepositoryDescriptor repository, GitCommitterDescriptor committer) {
+        repository.getCommitters().add(committer);
     }
 }
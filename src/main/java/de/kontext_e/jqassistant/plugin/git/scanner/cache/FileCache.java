@@ -1,61 +1,205 @@
 package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 
 import com.buschmais.jqassistant.core.store.api.Store;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.LatencyHistogram;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitFileDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
-import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getFileDescriptorFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getRepositoryFileDescriptorFromDB;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getRepositoryFileDescriptorsFromDB;
 
+/**
+ * The file descriptors of a scan, indexed by the id of their relative path in the {@link PathTable} which the
+ * changes of the walk have been interned in.
+ *
+ * Relative paths only identify a file within its repository, so files are only looked up among the ones of the
+ * scanned repository. Every file is added to the repository as soon as it is created, files found in the store
+ * already belong to it.
+ *
+ * With a capacity, descriptors are evicted by the CLOCK algorithm (an approximation of least recently used which
+ * needs only a reference bit per path id): the clock hand sweeps over the cached descriptors, clears the bit of
+ * the ones used since its last pass and evicts the first one whose bit is already clear. An evicted descriptor is looked
+ * up among the files of the repository again when it is needed, even on a fresh scan.
+ */
 public class FileCache {
 
-    private final Map<String, GitFileDescriptor> files = new HashMap<>();
+    private final PathTable paths;
+    private GitFileDescriptor[] files = new GitFileDescriptor[1024];
+    // path ids which are known to have no node in the store (yet)
+    private final BitSet notInStore = new BitSet();
+    private final BitSet cached = new BitSet();
+    private final BitSet referenced = new BitSet();
+    private final BitSet evicted = new BitSet();
     private final Store store;
+    private final GitRepositoryDescriptor repository;
     private final boolean isFreshScan;
+    private final int capacity;
+    private int size;
+    private int clockHand;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long creates;
+    private final LatencyHistogram lookups = new LatencyHistogram();
 
-    public FileCache(Store store, boolean isFreshScan) {
+    public FileCache(Store store, GitRepositoryDescriptor repository, boolean isFreshScan) {
+        this(store, repository, isFreshScan, new PathTable());
+    }
+
+    public FileCache(Store store, GitRepositoryDescriptor repository, boolean isFreshScan, PathTable paths) {
+        this(store, repository, isFreshScan, paths, 0);
+    }
+
+    /**
+     * @param capacity the maximum number of cached files, 0 for no limit
+     */
+    public FileCache(Store store, GitRepositoryDescriptor repository, boolean isFreshScan, PathTable paths, int capacity) {
         this.store = store;
+        this.repository = repository;
         this.isFreshScan = isFreshScan;
+        this.paths = paths;
+        this.capacity = capacity;
     }
 
-    public List<GitFileDescriptor> getFiles() {
-        return new ArrayList<>(files.values());
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics("File", capacity, size, hits, misses, evictions, creates, lookups);
     }
 
     public GitFileDescriptor findOrCreate(String relativePath) {
-        GitFileDescriptor descriptor = find(relativePath);
+        return findOrCreate(paths.intern(relativePath));
+    }
+
+    /**
+     * @param pathId the id of the relative path in the {@link PathTable} of this cache
+     */
+    public GitFileDescriptor findOrCreate(int pathId) {
+        GitFileDescriptor descriptor = find(pathId);
         if (descriptor != null) {
             return descriptor;
         }
-        return createFileDescriptor(relativePath);
+        return createFileDescriptor(pathId);
     }
 
     public GitFileDescriptor find(String relativePath) {
-        if (files.containsKey(relativePath)) {
-            return files.get(relativePath);
+        return find(paths.intern(relativePath));
+    }
+
+    public GitFileDescriptor find(int pathId) {
+        GitFileDescriptor cached = getCached(pathId);
+        if (cached != null) {
+            hits++;
+            referenced.set(pathId);
+            return cached;
         } else {
-            if (isFreshScan) return null;
-            GitFileDescriptor gitFileDescriptor = getFileDescriptorFromDB(store, relativePath);
+            misses++;
+            // an evicted file exists in the store even on a fresh scan
+            if ((isFreshScan && !evicted.get(pathId)) || notInStore.get(pathId)) return null;
+            long start = System.nanoTime();
+            GitFileDescriptor gitFileDescriptor = getRepositoryFileDescriptorFromDB(store, repository, paths.path(pathId));
+            lookups.record(System.nanoTime() - start);
             if (gitFileDescriptor != null) {
-                addToCache(gitFileDescriptor);
+                addToCache(pathId, gitFileDescriptor);
+            } else {
+                notInStore.set(pathId);
             }
             return gitFileDescriptor;
         }
     }
 
-    private void addToCache(GitFileDescriptor gitFileDescriptor) {
-        files.put(gitFileDescriptor.getRelativePath(), gitFileDescriptor);
+    /**
+     * Interns the relative paths of a batch of changes and looks up the file nodes of the ones which are not cached
+     * yet with a single query. Paths without a node are remembered by their path id until a file is created for them.
+     */
+    public void preload(final Collection<String> relativePaths) {
+        if (isFreshScan) return;
+
+        Set<String> unresolved = new LinkedHashSet<>();
+        for (String relativePath : relativePaths) {
+            if (relativePath == null) continue;
+
+            int pathId = paths.intern(relativePath);
+            if (getCached(pathId) == null && !notInStore.get(pathId)) {
+                unresolved.add(relativePath);
+            }
+        }
+        if (unresolved.isEmpty()) return;
+
+        long start = System.nanoTime();
+        Map<String, GitFileDescriptor> descriptors = getRepositoryFileDescriptorsFromDB(store, repository, unresolved);
+        lookups.record(System.nanoTime() - start);
+        for (String relativePath : unresolved) {
+            int pathId = paths.intern(relativePath);
+            GitFileDescriptor descriptor = descriptors.get(relativePath);
+            if (descriptor != null) {
+                addToCache(pathId, descriptor);
+            } else {
+                notInStore.set(pathId);
+            }
+        }
+    }
+
+    private GitFileDescriptor getCached(int pathId) {
+        return pathId < files.length ? files[pathId] : null;
+    }
+
+    private void addToCache(int pathId, GitFileDescriptor gitFileDescriptor) {
+        if (pathId >= files.length) {
+            files = Arrays.copyOf(files, Math.max(files.length * 2, pathId + 1));
+        }
+        if (files[pathId] == null) {
+            size++;
+            cached.set(pathId);
+        }
+        files[pathId] = gitFileDescriptor;
+        notInStore.clear(pathId);
+        if (capacity > 0 && size > capacity) {
+            evictOne(pathId);
+        }
+    }
+
+    /*
+     * New descriptors are not referenced until they are hit, so files changed only once are evicted before
+     * the ones changed again and again. The descriptor just added is in use and never evicted.
+     */
+    private void evictOne(int added) {
+        while (true) {
+            int pathId = cached.nextSetBit(clockHand);
+            if (pathId < 0) {
+                clockHand = 0;
+                continue;
+            }
+            clockHand = pathId + 1;
+
+            if (pathId == added) continue;
+            if (referenced.get(pathId)) {
+                referenced.clear(pathId);
+            } else {
+                files[pathId] = null;
+                cached.clear(pathId);
+                size--;
+                evictions++;
+                evicted.set(pathId);
+                return;
+            }
+        }
     }
 
-    private GitFileDescriptor createFileDescriptor(String relativePath) {
+    private GitFileDescriptor createFileDescriptor(int pathId) {
         GitFileDescriptor gitFileDescriptor = store.create(GitFileDescriptor.class);
 
-        gitFileDescriptor.setRelativePath(relativePath);
+        gitFileDescriptor.setRelativePath(paths.path(pathId));
+        repository.getFiles().add(gitFileDescriptor);
 
-        addToCache(gitFileDescriptor);
+        addToCache(pathId, gitFileDescriptor);
+        creates++;
         return gitFileDescriptor;
     }
 
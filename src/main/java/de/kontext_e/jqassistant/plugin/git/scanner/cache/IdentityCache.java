@@ -0,0 +1,152 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitPersonDescriptor;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The author or committer descriptors of a scan by identity string.
+ *
+ * Every descriptor is added to the repository as soon as it is created or found in the store. With a capacity the
+ * least recently used descriptors are evicted. Once a descriptor has been evicted, an identity which is not cached is
+ * looked up among the ones of the repository first: that finds the evicted descriptors without remembering their
+ * keys, so they are neither created nor added to the repository twice.
+ */
+public abstract class IdentityCache<D extends GitPersonDescriptor> {
+
+    private final String name;
+    private final LruCache<D> descriptors;
+    // identities of the last preload which have no node in the store (yet)
+    private final Set<String> notInStore = new HashSet<>();
+    private final Store store;
+    private final GitRepositoryDescriptor repository;
+    private final boolean isFreshScan;
+
+    /**
+     * @param capacity the maximum number of cached descriptors, 0 for no limit
+     */
+    IdentityCache(String name, Store store, GitRepositoryDescriptor repository, boolean isFreshScan, int capacity) {
+        this.name = name;
+        this.store = store;
+        this.repository = repository;
+        this.isFreshScan = isFreshScan;
+        this.descriptors = new LruCache<>(name, capacity);
+    }
+
+    public D findOrCreate(final String identString) {
+        D descriptor = find(identString);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        return create(identString);
+    }
+
+    public D find(final String identString) {
+        D cached = descriptors.get(identString);
+        if (cached != null) {
+            return cached;
+        }
+        if (notInStore.contains(identString)) return null;
+
+        if (descriptors.hasEvicted()) {
+            long start = System.nanoTime();
+            D known = findAllOfRepository(store, repository, Set.of(identString)).get(identString);
+            descriptors.lookedUp(start);
+            if (known != null) {
+                descriptors.put(identString, known);
+                return known;
+            }
+        }
+        if (isFreshScan) return null;
+
+        long start = System.nanoTime();
+        D descriptor = findInStore(store, identString);
+        descriptors.lookedUp(start);
+        if (descriptor != null) {
+            addToCache(identString, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Resolves the identities of a batch which are not cached with a single query, the ones which have no node in
+     * the store are remembered until the next preload.
+     */
+    public void preload(final Collection<String> identStrings) {
+        if (isFreshScan) return;
+
+        notInStore.clear();
+        Set<String> unresolved = new LinkedHashSet<>();
+        for (String identString : identStrings) {
+            if (identString != null && !descriptors.containsKey(identString)) {
+                unresolved.add(identString);
+            }
+        }
+        if (unresolved.isEmpty()) return;
+
+        if (descriptors.hasEvicted()) {
+            long start = System.nanoTime();
+            Map<String, D> known = findAllOfRepository(store, repository, unresolved);
+            descriptors.lookedUp(start);
+            known.forEach(descriptors::put);
+            unresolved.removeAll(known.keySet());
+            if (unresolved.isEmpty()) return;
+        }
+
+        long start = System.nanoTime();
+        Map<String, D> found = findAllInStore(store, unresolved);
+        descriptors.lookedUp(start);
+        found.forEach(this::addToCache);
+        unresolved.removeAll(found.keySet());
+        notInStore.addAll(unresolved);
+    }
+
+    public CacheStatistics getStatistics() {
+        return descriptors.getStatistics();
+    }
+
+    private void addToCache(String identString, D descriptor) {
+        descriptors.put(identString, descriptor);
+        addToRepository(repository, descriptor);
+    }
+
+    private D create(String identString) {
+        if (identString == null) { throw new IllegalArgumentException(name + "s' identity string is null"); }
+        D descriptor = store.create(type());
+
+        setIdentString(descriptor, identString);
+        descriptor.setName(nameFrom(identString));
+        descriptor.setEmail(emailFrom(identString));
+
+        notInStore.remove(identString);
+        addToCache(identString, descriptor);
+        descriptors.created();
+        return descriptor;
+    }
+
+    private static String emailFrom(String identString) {
+        return identString.substring(identString.indexOf("<")+1, identString.indexOf(">")).trim();
+    }
+
+    private static String nameFrom(String identString) {
+        return identString.substring(0, identString.indexOf("<")).trim();
+    }
+
+    abstract Class<D> type();
+
+    abstract void setIdentString(D descriptor, String identString);
+
+    abstract D findInStore(Store store, String identString);
+
+    abstract Map<String, D> findAllInStore(Store store, Collection<String> identStrings);
+
+    abstract Map<String, D> findAllOfRepository(Store store, GitRepositoryDescriptor repository, Collection<String> identStrings);
+
+    abstract void addToRepository(GitRepositoryDescriptor repository, D descriptor);
+}
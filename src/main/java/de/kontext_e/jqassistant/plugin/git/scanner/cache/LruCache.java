@@ -0,0 +1,83 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Descriptors by key, the least recently used one is evicted when the capacity is exceeded.
+ *
+ * Evicted keys are not remembered, the owner of the cache has to find evicted descriptors in the store again. Not
+ * safe for use by several threads.
+ */
+class LruCache<D> {
+
+    private final String name;
+    private final int capacity;
+    private final Map<String, D> descriptors;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long creates;
+    private final LatencyHistogram lookups = new LatencyHistogram();
+
+    /**
+     * @param capacity the maximum number of cached descriptors, 0 for no limit
+     */
+    LruCache(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.descriptors = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, D> eldest) {
+                if (LruCache.this.capacity <= 0 || size() <= LruCache.this.capacity) return false;
+
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Counts a hit or a miss.
+     */
+    D get(String key) {
+        D descriptor = descriptors.get(key);
+        if (descriptor != null) { hits++; } else { misses++; }
+        return descriptor;
+    }
+
+    boolean containsKey(String key) {
+        return descriptors.containsKey(key);
+    }
+
+    void put(String key, D descriptor) {
+        descriptors.put(key, descriptor);
+    }
+
+    /**
+     * Counts a descriptor created in the store.
+     */
+    void created() {
+        creates++;
+    }
+
+    /**
+     * Records the latency of a query for descriptors which were not cached.
+     */
+    void lookedUp(long startNanos) {
+        lookups.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return true if any descriptor has been evicted, so a key which is not cached may still have one
+     */
+    boolean hasEvicted() {
+        return evictions > 0;
+    }
+
+    CacheStatistics getStatistics() {
+        return new CacheStatistics(name, capacity, descriptors.size(), hits, misses, evictions, creates, lookups);
+    }
+}
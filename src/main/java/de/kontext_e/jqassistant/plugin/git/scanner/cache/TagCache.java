@@ -2,11 +2,14 @@ package de.kontext_e.jqassistant.plugin.git.scanner.cache;
 
 import com.buschmais.jqassistant.core.store.api.Store;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitCommitDescriptor;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitTagDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.importExistingTagsFromStore;
@@ -16,9 +19,11 @@ public class TagCache {
     private final Logger LOGGER = LoggerFactory.getLogger(TagCache.class);
     private final Map<String, GitTagDescriptor> tags;
     private final Store store;
+    private final GitRepositoryDescriptor gitRepositoryDescriptor;
 
     public TagCache(Store store, GitRepositoryDescriptor gitRepositoryDescriptor) {
         this.store = store;
+        this.gitRepositoryDescriptor = gitRepositoryDescriptor;
         this.tags = importExistingTagsFromStore(store, gitRepositoryDescriptor);
     }
 
@@ -32,11 +37,25 @@ public class TagCache {
         return createTagDescriptor(tagLabel);
     }
 
+    /**
+     * @return the commits of the tags which have been stored by a previous scan
+     */
+    public List<GitCommitDescriptor> getStoredCommits() {
+        List<GitCommitDescriptor> commits = new ArrayList<>();
+        for (GitTagDescriptor tag : tags.values()) {
+            if (tag.getCommit() != null) {
+                commits.add(tag.getCommit());
+            }
+        }
+        return commits;
+    }
+
     private GitTagDescriptor createTagDescriptor(String label) {
         LOGGER.debug("Adding new Tag '{}'", label);
         GitTagDescriptor gitTagDescriptor = store.create(GitTagDescriptor.class);
 
         gitTagDescriptor.setLabel(label);
+        gitRepositoryDescriptor.getTags().add(gitTagDescriptor);
 
         tags.put(label, gitTagDescriptor);
         return gitTagDescriptor;
@@ -0,0 +1,37 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The diff of a commit against its parents, only slow ones are recorded: huge commits and expensive rename
+ * detections.
+ */
+@Name("de.kontext_e.jqassistant.git.CommitDiff")
+@Label("Git Commit Diff")
+@Category({"jQAssistant", "Git"})
+@Description("Diff of a commit against its parents including rename detection")
+@StackTrace(false)
+@Threshold("50 ms")
+public class CommitDiffEvent extends jdk.jfr.Event {
+
+    @Label("Commit")
+    public String sha;
+
+    @Label("Parents")
+    public int parents;
+
+    @Label("Changes")
+    public int changes;
+
+    @Label("Renames and Copies")
+    public int renames;
+
+    @Label("Rename Detection")
+    @Description("The weakest rename detection used for the diffs of the commit: full, exact or none")
+    public String renameDetection;
+}
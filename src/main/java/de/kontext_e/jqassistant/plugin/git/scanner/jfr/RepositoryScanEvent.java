@@ -0,0 +1,30 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The scan of one repository, recorded for every repository.
+ */
+@Name("de.kontext_e.jqassistant.git.RepositoryScan")
+@Label("Git Repository Scan")
+@Category({"jQAssistant", "Git"})
+@Description("Scan of a Git repository, from the walk of its commits to its branches and tags in the store")
+@StackTrace(false)
+public class RepositoryScanEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Walked Commits")
+    public long walkedCommits;
+
+    @Label("Stored Commits")
+    public long storedCommits;
+
+    @Label("Diff Entries")
+    public long diffEntries;
+}
@@ -0,0 +1,27 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A phase of the scan of a repository. The commits are stored in one phase per batch and walked in one phase between
+ * two batches, so the walk does not include waiting for the store, like in the scan metrics.
+ */
+@Name("de.kontext_e.jqassistant.git.ScanPhase")
+@Label("Git Scan Phase")
+@Category({"jQAssistant", "Git"})
+@Description("Phase of the scan of a Git repository, the walk and the storing of commits are recorded per batch, the walk without waiting for the store")
+@StackTrace(false)
+@Threshold("100 ms")
+public class ScanPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Phase")
+    public String phase;
+}
@@ -0,0 +1,48 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Cypher query looking up nodes in the store, only slow ones are recorded.
+ */
+@Name("de.kontext_e.jqassistant.git.StoreLookup")
+@Label("Git Store Lookup")
+@Category({"jQAssistant", "Git"})
+@Description("Cypher query looking up already stored nodes")
+@StackTrace(false)
+@Threshold("20 ms")
+public class StoreLookupEvent extends jdk.jfr.Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Keys")
+    @Description("Number of keys looked up, bulk queries resolve many at once")
+    public int keys;
+
+    /**
+     * Begins the event, {@link #finish(String, int)} commits it if it took longer than the threshold.
+     */
+    public static StoreLookupEvent start() {
+        StoreLookupEvent event = new StoreLookupEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event, its fields are only filled if it is committed.
+     */
+    public void finish(String query, int keys) {
+        end();
+        if (shouldCommit()) {
+            this.query = query;
+            this.keys = keys;
+            commit();
+        }
+    }
+}
@@ -1,40 +1,119 @@
 package de.kontext_e.jqassistant.plugin.git.scanner.model;
 
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
 import org.eclipse.jgit.diff.DiffEntry;
 
 import java.util.Objects;
 
+/**
+ * A changed file of a commit.
+ *
+ * Commits are held in memory in batches with all their changes, so a change only keeps its type and the paths,
+ * the modification kind and the relative path are derived from them. Changes of a walk intern their paths in the
+ * {@link PathTable} of the repository, they share the path strings and the files can be looked up by path id.
+ */
 public class GitChange {
-    private final String modificationKind;
-    private final String relativePath;
-    private final String changeType;
+    private final DiffEntry.ChangeType changeType;
     private final String oldPath;
     private final String newPath;
+    private final int oldPathId;
+    private final int newPathId;
+    private String parentSha;
 
-    public GitChange(final String changeType, final String oldPath, final String newPath) {
-        this.modificationKind = changeType.substring(0, 1);
-        this.relativePath = DiffEntry.ChangeType.DELETE.name().equalsIgnoreCase(changeType) ? oldPath : newPath;
-        this.changeType = changeType;
+    /**
+     * A change with interned paths.
+     */
+    public GitChange(final DiffEntry.ChangeType changeType, final PathTable paths, final String oldPath, final String newPath) {
+        this.changeType = Objects.requireNonNull(changeType, "changeType");
+        this.oldPathId = paths.intern(oldPath);
+        this.newPathId = oldPath.equals(newPath) ? oldPathId : paths.intern(newPath);
+        this.oldPath = paths.path(oldPathId);
+        this.newPath = paths.path(newPathId);
+    }
+
+    /**
+     * A change with paths which are not interned, their ids are {@link PathTable#NO_ID}.
+     */
+    public GitChange(final DiffEntry.ChangeType changeType, final String oldPath, final String newPath) {
+        this.changeType = Objects.requireNonNull(changeType, "changeType");
         this.oldPath = oldPath;
         this.newPath = newPath;
+        this.oldPathId = PathTable.NO_ID;
+        this.newPathId = PathTable.NO_ID;
+    }
+
+    /**
+     * @param changeType the name of a {@link DiffEntry.ChangeType} or its modification kind, e.g. "MODIFY" or "M"
+     */
+    public GitChange(final String changeType, final String oldPath, final String newPath) {
+        this(toChangeType(changeType), oldPath, newPath);
+    }
+
+    private static DiffEntry.ChangeType toChangeType(final String changeType) {
+        for (DiffEntry.ChangeType type : DiffEntry.ChangeType.values()) {
+            if (type.name().equalsIgnoreCase(changeType) || type.name().substring(0, 1).equalsIgnoreCase(changeType)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown change type: " + changeType);
+    }
+
+    public DiffEntry.ChangeType getChangeType() {
+        return changeType;
     }
 
+    /**
+     * @return the first letter of the change type: A, M, D, R or C
+     */
     public String getModificationKind() {
-        return modificationKind;
+        switch (changeType) {
+            case ADD: return "A";
+            case MODIFY: return "M";
+            case DELETE: return "D";
+            case RENAME: return "R";
+            case COPY: return "C";
+            default: throw new IllegalStateException("Unknown change type: " + changeType);
+        }
     }
 
     public String getRelativePath() {
-        return relativePath;
+        return changeType == DiffEntry.ChangeType.DELETE ? oldPath : newPath;
+    }
+
+    /**
+     * @return the id of the relative path in the {@link PathTable} of the walk, or {@link PathTable#NO_ID}
+     */
+    public int getRelativePathId() {
+        return changeType == DiffEntry.ChangeType.DELETE ? oldPathId : newPathId;
     }
 
     public String getOldPath() {
         return oldPath;
     }
 
+    public int getOldPathId() {
+        return oldPathId;
+    }
+
     public String getNewPath() {
         return newPath;
     }
 
+    public int getNewPathId() {
+        return newPathId;
+    }
+
+    /**
+     * @return the SHA of the parent commit this change was computed against
+     */
+    public String getParentSha() {
+        return parentSha;
+    }
+
+    public void setParentSha(final String parentSha) {
+        this.parentSha = parentSha;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -42,33 +121,32 @@ public class GitChange {
 
         final GitChange gitChange = (GitChange) o;
 
-        if (!Objects.equals(modificationKind, gitChange.modificationKind)) return false;
-        if (!Objects.equals(relativePath, gitChange.relativePath)) return false;
-        if (!Objects.equals(changeType, gitChange.changeType)) return false;
+        if (changeType != gitChange.changeType) return false;
         if (!Objects.equals(oldPath, gitChange.oldPath)) return false;
         if (!Objects.equals(newPath, gitChange.newPath)) return false;
+        if (!Objects.equals(parentSha, gitChange.parentSha)) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        int result = modificationKind != null ? modificationKind.hashCode() : 0;
-        result = 31 * result + (relativePath != null ? relativePath.hashCode() : 0);
-        result = 31 * result + (changeType != null ? changeType.hashCode() : 0);
+        int result = changeType.hashCode();
         result = 31 * result + (oldPath != null ? oldPath.hashCode() : 0);
         result = 31 * result + (newPath != null ? newPath.hashCode() : 0);
+        result = 31 * result + (parentSha != null ? parentSha.hashCode() : 0);
         return result;
     }
 
     @Override
     public String toString() {
         return "GitChange{" +
-               "modificationKind='" + modificationKind + '\'' +
-               ", relativePath='" + relativePath + '\'' +
+               "modificationKind='" + getModificationKind() + '\'' +
+               ", relativePath='" + getRelativePath() + '\'' +
                ", changeType='" + changeType + '\'' +
                ", oldPath='" + oldPath + '\'' +
                ", newPath='" + newPath + '\'' +
+               ", parentSha='" + parentSha + '\'' +
                '}';
     }
 }
@@ -0,0 +1,41 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.model;
+
+/**
+ * The position up to which a commit walk has been stored.
+ *
+ * The walk is identified by its start and end points (range, refs and commits excluded from the walk), for the
+ * same walk the commits are always visited in the same order. So the first <code>commits</code> commits up to
+ * <code>lastSha</code> can be skipped when the walk is resumed.
+ */
+public class GitCheckpoint {
+    private final String walkId;
+    private final long commits;
+    private final String lastSha;
+
+    public GitCheckpoint(String walkId, long commits, String lastSha) {
+        this.walkId = walkId;
+        this.commits = commits;
+        this.lastSha = lastSha;
+    }
+
+    public String getWalkId() {
+        return walkId;
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public String getLastSha() {
+        return lastSha;
+    }
+
+    @Override
+    public String toString() {
+        return "GitCheckpoint{" +
+               "walkId='" + walkId + '\'' +
+               ", commits=" + commits +
+               ", lastSha='" + lastSha + '\'' +
+               '}';
+    }
+}
@@ -1,28 +1,58 @@
 package de.kontext_e.jqassistant.plugin.git.scanner.model;
 
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * A commit as walked from the repository.
+ *
+ * A batch of commits with all their changes is held in memory while it is stored. So the SHA is kept as
+ * {@link ObjectId}, which the caches look commits up by, its name is only built once when it is first asked for. The
+ * lists are only created when they are first asked for and grow to their exact size (most commits have one parent).
+ * So a parent reference, which never gets changes or parents, is just the object and the id of the parent.
+ */
 public class GitCommit {
-    private final String sha;
+    // the object id is null if the SHA is not a valid object id, the SHA is the name of the object id once asked for
+    private final ObjectId id;
+    private String sha;
     private String author;
     private String committer;
     private Date date;
     private String message;
     private String shortMessage;
-    private final List<GitChange> gitChanges = new LinkedList<>();
-    private final List<GitCommit> parents = new LinkedList<>();
+    private List<GitChange> gitChanges;
+    private List<GitCommit> parents;
     private String encoding;
+    private RenameDetection renameDetection;
 
     public GitCommit(final String sha) {
+        this.id = ObjectId.isId(sha) ? ObjectId.fromString(sha) : null;
         this.sha = sha;
     }
 
+    public GitCommit(final AnyObjectId id) {
+        this.id = id.copy();
+        this.sha = null;
+    }
+
     public String getSha() {
+        if (sha == null) {
+            sha = id.name();
+        }
         return sha;
     }
 
+    /**
+     * @return the object id of the commit, or null if it has been created with a SHA which is not a valid object id
+     */
+    public ObjectId getId() {
+        return id;
+    }
+
     public String getAuthor() {
         return author;
     }
@@ -55,10 +85,16 @@ public class GitCommit {
     }
 
     public List<GitChange> getGitChanges() {
+        if (gitChanges == null) {
+            gitChanges = new ArrayList<>(0);
+        }
         return gitChanges;
     }
 
     public  List<GitCommit> getParents() {
+        if (parents == null) {
+            parents = new ArrayList<>(0);
+        }
         return parents;
     }
 
@@ -70,6 +106,14 @@ public class GitCommit {
         return encoding;
     }
 
+    public RenameDetection getRenameDetection() {
+        return renameDetection;
+    }
+
+    public void setRenameDetection(final RenameDetection renameDetection) {
+        this.renameDetection = renameDetection;
+    }
+
     @Override
     /* Equality is only determined by the sha */
     public boolean equals(final Object o) {
@@ -77,26 +121,26 @@ public class GitCommit {
         if (o == null || getClass() != o.getClass()) return false;
 
         final GitCommit that = (GitCommit) o;
-        return sha.equals(that.sha);
+        return id != null ? id.equals(that.id) : sha.equals(that.sha);
     }
 
     @Override
     /* sha is the hashCode */
     public int hashCode() {
-        return sha.hashCode();
+        return id != null ? id.hashCode() : sha.hashCode();
     }
 
     @Override
     public String toString() {
         return "GitCommit{" +
-               "sha='" + sha + '\'' +
+               "sha='" + getSha() + '\'' +
                ", author='" + author + '\'' +
                ", committer='" + committer + '\'' +
                ", date=" + date +
                ", message='" + message + '\'' +
                ", shortMessage='" + shortMessage + '\'' +
-               ", gitChanges=" + gitChanges +
-               ", parents=" + parents +
+               ", gitChanges=" + getGitChanges() +
+               ", parents=" + getParents() +
                ", encoding='" + encoding + '\'' +
                '}';
     }
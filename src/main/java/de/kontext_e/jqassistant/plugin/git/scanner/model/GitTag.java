@@ -1,5 +1,7 @@
 package de.kontext_e.jqassistant.plugin.git.scanner.model;
 
+import java.util.Date;
+
 /**
  * A Git Tag.
  *
@@ -9,6 +11,10 @@ package de.kontext_e.jqassistant.plugin.git.scanner.model;
 public class GitTag {
     private final String label;
     private final String commitSha;
+    // only set for annotated tags
+    private String tagger;
+    private Date date;
+    private String message;
 
     public GitTag(String label, String commitSha) {
         this.label = label;
@@ -22,4 +28,28 @@ public class GitTag {
     public String getCommitSha() {
         return commitSha;
     }
+
+    public String getTagger() {
+        return tagger;
+    }
+
+    public void setTagger(String tagger) {
+        this.tagger = tagger;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
 }
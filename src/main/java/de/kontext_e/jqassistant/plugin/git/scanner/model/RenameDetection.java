@@ -0,0 +1,19 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.model;
+
+/**
+ * How renames (and copies) were detected when computing the changes of a commit, from most to least thorough.
+ */
+public enum RenameDetection {
+    /** Exact and content similarity based rename detection */
+    FULL,
+    /** Only files with identical content are considered renamed */
+    EXACT,
+    /** No rename detection, renames show up as delete and add */
+    NONE;
+
+    public static RenameDetection weakest(RenameDetection a, RenameDetection b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
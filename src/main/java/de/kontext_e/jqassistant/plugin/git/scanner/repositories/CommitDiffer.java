@@ -0,0 +1,383 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
+import de.kontext_e.jqassistant.plugin.git.scanner.MergeDiffMode;
+import de.kontext_e.jqassistant.plugin.git.scanner.jfr.CommitDiffEvent;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.RenameDetection;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the changes of commits against their parents.
+ *
+ * With more than one thread the tree diffs are done by a pool of workers, each of them with its own
+ * {@link RevWalk} and {@link DiffFormatter} (and thus its own ObjectReader). {@link #awaitAll()} waits for
+ * the submitted commits in submission order, so the result does not depend on the number of threads.
+ */
+class CommitDiffer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitDiffer.class);
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Repository repository;
+    private final GitScannerConfiguration configuration;
+    private final PathTable paths;
+    private final ExecutorService executor;
+    private final ThreadLocal<DiffWorker> workers;
+    private final List<DiffWorker> allWorkers = new CopyOnWriteArrayList<>();
+    private final List<Future<?>> pendingDiffs = new ArrayList<>();
+
+    CommitDiffer(Repository repository, GitScannerConfiguration configuration, PathTable paths) {
+        this.repository = repository;
+        this.configuration = configuration;
+        this.paths = paths;
+        this.workers = ThreadLocal.withInitial(this::createWorker);
+        int threads = configuration.getDiffThreads();
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, new DiffThreadFactory()) : null;
+    }
+
+    /**
+     * Adds the changes of the given commit against each of its parents to the {@link GitCommit}.
+     * Depending on the number of threads this is done immediately or in the background.
+     */
+    void submit(RevCommit revCommit, GitCommit gitCommit) throws IOException {
+        final ObjectId tree = revCommit.getTree().getId();
+        final ObjectId[] parents = new ObjectId[revCommit.getParentCount()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = revCommit.getParent(i).getId();
+        }
+
+        if (executor == null) {
+            workers.get().diff(tree, parents, gitCommit);
+        } else {
+            pendingDiffs.add(executor.submit(() -> {
+                workers.get().diff(tree, parents, gitCommit);
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Waits until all submitted commits have been diffed.
+     */
+    void awaitAll() throws IOException {
+        try {
+            for (Future<?> pendingDiff : pendingDiffs) {
+                pendingDiff.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for commit diffs of '" + repository.getDirectory() + "'");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+            throw new IllegalStateException("Could not diff commits of Git repository '" + repository.getDirectory() + "'", e.getCause());
+        } finally {
+            pendingDiffs.clear();
+        }
+    }
+
+    /**
+     * Cancels the diffs which are still running and closes the workers once they are done. Workers of diffs which
+     * do not stop within {@link #CLOSE_TIMEOUT_SECONDS} are left open instead of being closed under them.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            pendingDiffs.forEach(pendingDiff -> pendingDiff.cancel(true));
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Commit diffs of '{}' did not stop within {} s, their readers are not closed", repository.getDirectory(), CLOSE_TIMEOUT_SECONDS);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        allWorkers.forEach(DiffWorker::close);
+        workers.remove();
+    }
+
+    private DiffWorker createWorker() {
+        DiffWorker worker = new DiffWorker(repository, configuration, paths);
+        allWorkers.add(worker);
+        return worker;
+    }
+
+    private static class DiffWorker implements AutoCloseable {
+        private final ObjectReader reader;
+        private final RevWalk rw;
+        private final DiffFormatter df;
+        private final RenameDetector renameDetector;
+        private final GitScannerConfiguration configuration;
+        private final PathTable paths;
+
+        DiffWorker(Repository repository, GitScannerConfiguration configuration, PathTable paths) {
+            this.configuration = configuration;
+            this.paths = paths;
+            reader = repository.newObjectReader();
+            df = new DiffFormatter(DisabledOutputStream.INSTANCE);
+            df.setReader(reader, repository.getConfig());
+            df.setDiffComparator(RawTextComparator.DEFAULT);
+            // renames are detected separately according to the configured policy
+            df.setDetectRenames(false);
+            // excluded paths are skipped by the tree walk and never become a DiffEntry
+            df.setPathFilter(PathGlobFilter.create(configuration.getIncludePaths(), configuration.getExcludePaths()));
+            rw = new RevWalk(reader);
+            rw.setRetainBody(false);
+            renameDetector = new RenameDetector(reader, repository.getConfig().get(DiffConfig.KEY));
+        }
+
+        void diff(ObjectId tree, ObjectId[] parents, GitCommit gitCommit) throws IOException {
+            CommitDiffEvent event = new CommitDiffEvent();
+            event.begin();
+            MergeDiffMode mergeDiffMode = parents.length > 1 ? configuration.getMergeDiffMode() : MergeDiffMode.ALL_PARENTS;
+            // the time budget is per commit, the diffs against all of its parents share it
+            DeadlineMonitor deadline = new DeadlineMonitor(configuration.getRenameDetectionTimeout());
+            switch (mergeDiffMode) {
+                case NONE:
+                    break;
+                case FIRST_PARENT:
+                    gitCommit.getGitChanges().addAll(diff(tree, parents[0], gitCommit, deadline));
+                    break;
+                case COMBINED:
+                    gitCommit.getGitChanges().addAll(combinedDiff(tree, parents, gitCommit, deadline));
+                    break;
+                default:
+                    for (ObjectId parentId : parents) {
+                        gitCommit.getGitChanges().addAll(diff(tree, parentId, gitCommit, deadline));
+                    }
+            }
+            // parents are only needed for this diff, do not let the walk grow with the history
+            rw.dispose();
+            commitIfSlow(event, parents, gitCommit);
+        }
+
+        private static void commitIfSlow(CommitDiffEvent event, ObjectId[] parents, GitCommit gitCommit) {
+            event.end();
+            if (!event.shouldCommit()) return;
+
+            event.sha = gitCommit.getSha();
+            event.parents = parents.length;
+            event.changes = gitCommit.getGitChanges().size();
+            for (GitChange gitChange : gitCommit.getGitChanges()) {
+                DiffEntry.ChangeType changeType = gitChange.getChangeType();
+                if (changeType == DiffEntry.ChangeType.RENAME || changeType == DiffEntry.ChangeType.COPY) {
+                    event.renames++;
+                }
+            }
+            if (gitCommit.getRenameDetection() != null) {
+                event.renameDetection = gitCommit.getRenameDetection().name().toLowerCase(Locale.ROOT);
+            }
+            event.commit();
+        }
+
+        private List<GitChange> diff(ObjectId tree, ObjectId parentId, GitCommit gitCommit, DeadlineMonitor deadline) throws IOException {
+            RevCommit parent = rw.parseCommit(parentId);
+
+            List<GitChange> gitChanges = detectRenames(parent.getTree(), tree, gitCommit, deadline);
+            String parentSha = ObjectId.toString(parentId);
+            for (GitChange gitChange : gitChanges) {
+                gitChange.setParentSha(parentSha);
+                logger.debug(gitChange.toString());
+            }
+            return gitChanges;
+        }
+
+        /*
+         * The changes against the first parent, restricted to the paths which differ from the other parents as well.
+         */
+        private List<GitChange> combinedDiff(ObjectId tree, ObjectId[] parents, GitCommit gitCommit, DeadlineMonitor deadline) throws IOException {
+            List<GitChange> gitChanges = diff(tree, parents[0], gitCommit, deadline);
+
+            Set<String> combinedPaths = new HashSet<>();
+            for (GitChange gitChange : gitChanges) {
+                combinedPaths.add(gitChange.getRelativePath());
+            }
+            for (int i = 1; i < parents.length && !combinedPaths.isEmpty(); i++) {
+                Set<String> changedPaths = new HashSet<>();
+                for (DiffEntry diff : df.scan(rw.parseCommit(parents[i]).getTree(), tree)) {
+                    changedPaths.add(diff.getChangeType() == DiffEntry.ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath());
+                }
+                combinedPaths.retainAll(changedPaths);
+            }
+
+            gitChanges.removeIf(gitChange -> !combinedPaths.contains(gitChange.getRelativePath()));
+            return gitChanges;
+        }
+
+        private List<GitChange> detectRenames(AnyObjectId parentTree, ObjectId tree, GitCommit gitCommit, DeadlineMonitor deadline) throws IOException {
+            List<DiffEntry> diffs = df.scan(parentTree, tree);
+            RenameDetection renameDetection = RenameDetection.FULL;
+            int maxChanges = configuration.getRenameDetectionMaxChanges();
+            if (maxChanges > 0 && diffs.size() > maxChanges) {
+                logger.debug("Commit {} has #{} changes, using rename detection {}", gitCommit.getSha(), diffs.size(), configuration.getRenameDetectionFallback());
+                renameDetection = configuration.getRenameDetectionFallback();
+            }
+
+            List<GitChange> gitChanges = null;
+            if (renameDetection == RenameDetection.FULL) {
+                gitChanges = detectAllRenames(diffs, gitCommit, deadline);
+                if (gitChanges == null) {
+                    renameDetection = configuration.getRenameDetectionFallback();
+                    // JGit turns the deleted entries it has paired into renames, the fallback needs them unchanged
+                    diffs = df.scan(parentTree, tree);
+                } else if (renameDetector.isOverRenameLimit()) {
+                    // JGit has only paired files with identical content
+                    renameDetection = RenameDetection.EXACT;
+                }
+            }
+            if (gitChanges == null && renameDetection == RenameDetection.EXACT) {
+                gitChanges = detectExactRenames(diffs);
+            } else if (gitChanges == null) {
+                gitChanges = toGitChanges(diffs);
+            }
+
+            gitCommit.setRenameDetection(RenameDetection.weakest(gitCommit.getRenameDetection(), renameDetection));
+            return gitChanges;
+        }
+
+        /*
+         * Exact and similarity based rename detection of JGit, returns null if the time budget of the commit has been
+         * exceeded. Above the rename limit JGit skips the similarity based detection and only returns exact renames.
+         */
+        private List<GitChange> detectAllRenames(List<DiffEntry> diffs, GitCommit gitCommit, DeadlineMonitor deadline) throws IOException {
+            renameDetector.reset();
+            Integer renameLimit = configuration.getRenameLimit();
+            if (renameLimit != null) {
+                renameDetector.setRenameLimit(renameLimit);
+            }
+            renameDetector.addAll(diffs);
+            try {
+                List<GitChange> gitChanges = toGitChanges(renameDetector.compute(deadline));
+                if (renameDetector.isOverRenameLimit()) {
+                    logger.debug("Commit {} exceeds the rename limit of {}, using exact rename detection", gitCommit.getSha(), renameDetector.getRenameLimit());
+                }
+                return gitChanges;
+            } catch (CanceledException e) {
+                logger.debug("Rename detection for commit {} exceeded {} ms, using rename detection {}", gitCommit.getSha(), configuration.getRenameDetectionTimeout(), configuration.getRenameDetectionFallback());
+                return null;
+            }
+        }
+
+        /*
+         * A deleted and an added file with the same content are a rename, further added files with that content are copies.
+         */
+        private List<GitChange> detectExactRenames(List<DiffEntry> diffs) {
+            Map<AbbreviatedObjectId, Deque<DiffEntry>> deletedByContent = new HashMap<>();
+            for (DiffEntry diff : diffs) {
+                if (diff.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                    deletedByContent.computeIfAbsent(diff.getOldId(), id -> new ArrayDeque<>()).add(diff);
+                }
+            }
+
+            Map<DiffEntry, DiffEntry> renameSources = new IdentityHashMap<>();
+            Map<AbbreviatedObjectId, DiffEntry> copySources = new HashMap<>();
+            for (DiffEntry diff : diffs) {
+                if (diff.getChangeType() != DiffEntry.ChangeType.ADD) continue;
+
+                Deque<DiffEntry> sources = deletedByContent.get(diff.getNewId());
+                if (sources != null && !sources.isEmpty()) {
+                    DiffEntry source = sources.poll();
+                    renameSources.put(diff, source);
+                    copySources.putIfAbsent(diff.getNewId(), source);
+                }
+            }
+
+            Set<DiffEntry> renamed = Collections.newSetFromMap(new IdentityHashMap<>());
+            renamed.addAll(renameSources.values());
+            List<GitChange> gitChanges = new ArrayList<>(diffs.size());
+            for (DiffEntry diff : diffs) {
+                if (diff.getChangeType() == DiffEntry.ChangeType.DELETE && renamed.contains(diff)) continue;
+
+                if (diff.getChangeType() != DiffEntry.ChangeType.ADD) {
+                    gitChanges.add(toGitChange(diff));
+                } else if (renameSources.containsKey(diff)) {
+                    gitChanges.add(new GitChange(DiffEntry.ChangeType.RENAME, paths, renameSources.get(diff).getOldPath(), diff.getNewPath()));
+                } else if (copySources.containsKey(diff.getNewId())) {
+                    gitChanges.add(new GitChange(DiffEntry.ChangeType.COPY, paths, copySources.get(diff.getNewId()).getOldPath(), diff.getNewPath()));
+                } else {
+                    gitChanges.add(toGitChange(diff));
+                }
+            }
+            return gitChanges;
+        }
+
+        private List<GitChange> toGitChanges(List<DiffEntry> diffs) {
+            List<GitChange> gitChanges = new ArrayList<>(diffs.size());
+            for (DiffEntry diff : diffs) {
+                gitChanges.add(toGitChange(diff));
+            }
+            return gitChanges;
+        }
+
+        private GitChange toGitChange(DiffEntry diff) {
+            return new GitChange(
+                    diff.getChangeType(),
+                    paths,
+                    diff.getOldPath(),
+                    diff.getNewPath()
+            );
+        }
+
+        @Override
+        public void close() {
+            rw.close();
+            df.close();
+            reader.close();
+        }
+    }
+
+    /*
+     * Lets JGit's rename detection cancel itself once the time budget of a commit is used up, it is shared by the
+     * diffs against all parents of the commit.
+     */
+    private static class DeadlineMonitor extends EmptyProgressMonitor {
+        private final long deadline;
+
+        DeadlineMonitor(long timeoutMillis) {
+            this.deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+        }
+    }
+
+    private static class DiffThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jqassistant-git-diff-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Access to the commit-graph file (<code>objects/info/commit-graph</code>) of a repository.
+ *
+ * JGit only reads the commit-graph if <code>core.commitGraph</code> is set. With the commit-graph the walk takes
+ * parents, commit times and generation numbers from the graph instead of inflating the commits.
+ *
+ * Changed-path Bloom filters are neither read nor written: JGit only consults them for walks limited by a path, and
+ * the scan walks all commits (include and exclude paths only filter the changes of each commit).
+ */
+class CommitGraphFiles {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitGraphFiles.class);
+
+    private CommitGraphFiles() {
+    }
+
+    /**
+     * Lets walks on the repository use an existing commit-graph. Only changes the in-memory configuration.
+     */
+    static void enable(Repository repository) {
+        StoredConfig config = repository.getConfig();
+        config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+    }
+
+    static boolean exists(Repository repository) {
+        return repository instanceof FileRepository
+               && new File(((FileRepository) repository).getObjectsDirectory(), "info/commit-graph").exists();
+    }
+
+    /**
+     * Writes a commit-graph for all refs if the repository has none.
+     *
+     * @return the written file, which should be deleted with {@link #delete(File)} after the scan, or null if the
+     * repository already has a commit-graph or none could be written
+     */
+    static File writeIfMissing(Repository repository) throws IOException {
+        if (!(repository instanceof FileRepository)) return null;
+
+        File commitGraph = new File(((FileRepository) repository).getObjectsDirectory(), "info/commit-graph");
+        if (commitGraph.exists()) return null;
+
+        long start = System.nanoTime();
+        LockFile lock = new LockFile(commitGraph);
+        if (!lock.lock()) {
+            logger.warn("Could not lock '{}', scanning without commit-graph", commitGraph);
+            return null;
+        }
+        try (RevWalk rw = new RevWalk(repository)) {
+            GraphCommits graphCommits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, findCommitTips(repository, rw), rw);
+            try (OutputStream out = lock.getOutputStream()) {
+                // Bloom filters would cost a tree diff per commit and are not used by the scan
+                new CommitGraphWriter(graphCommits, false).write(NullProgressMonitor.INSTANCE, out);
+            }
+            if (!lock.commit()) {
+                logger.warn("Could not write '{}', scanning without commit-graph", commitGraph);
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        logger.info("Wrote temporary commit-graph '{}' in {} ms", commitGraph, (System.nanoTime() - start) / 1_000_000);
+        return commitGraph;
+    }
+
+    static void delete(File commitGraph) {
+        if (commitGraph != null && !commitGraph.delete()) {
+            logger.warn("Could not delete temporary commit-graph '{}'", commitGraph);
+        }
+    }
+
+    private static Set<ObjectId> findCommitTips(Repository repository, RevWalk rw) throws IOException {
+        Set<ObjectId> tips = new HashSet<>();
+        for (Ref ref : repository.getRefDatabase().getRefs()) {
+            if (ref.getObjectId() == null) continue;
+            try {
+                tips.add(rw.parseCommit(ref.getObjectId()).getId());
+            } catch (IncorrectObjectTypeException e) {
+                logger.debug("Ref '{}' does not point to a commit", ref.getName());
+            }
+        }
+        return tips;
+    }
+}
@@ -1,27 +1,30 @@
 package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
 
+import de.kontext_e.jqassistant.plugin.git.scanner.GitScannerConfiguration;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitBranch;
-import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCheckpoint;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
-import org.eclipse.jgit.diff.RawTextComparator;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevTag;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * A Scanner based on Eclipse JGit.
@@ -38,28 +41,51 @@ public class JGitRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(JGitRepository.class);
 
+    // the window cache is shared by all repositories of the JVM, remembers the settings it was last configured with
+    private static String installedWindowCacheSettings = null;
+
     private final String path;
     private final Repository repository;
-    private final Map<String, GitCommit> commits = new HashMap<>();
     private final Git git;
+    private final GitScannerConfiguration configuration;
+    private final PathTable paths = new PathTable();
 
     public JGitRepository(final String path) throws IOException {
+        this(path, new GitScannerConfiguration());
+    }
+
+    public JGitRepository(final String path, final GitScannerConfiguration configuration) throws IOException {
         this.path = path;
+        this.configuration = configuration;
         this.repository = getRepository();
         this.git = new Git(repository);
     }
 
     public JGitRepository(Git git) {
         this.git = git;
+        this.configuration = new GitScannerConfiguration();
         this.repository = git.getRepository();
         this.path = repository.getDirectory().getAbsolutePath();
     }
 
+    /**
+     * @return the table the paths of the walked changes are interned in
+     */
+    public PathTable getPaths() {
+        return paths;
+    }
+
     public LogCommand getLogWithOrWithOutRange(String range) throws IOException {
         LogCommand result = git.log();
 
         if (null == range) { return result.all(); }
 
+        AnyObjectId[] sinceAndUntil = resolveRange(range);
+        result = result.addRange(sinceAndUntil[0], sinceAndUntil[1]);
+        return result;
+    }
+
+    private AnyObjectId[] resolveRange(String range) throws IOException {
         int firstDot = range.indexOf('.');
         if (firstDot <= 0) { throw new IllegalArgumentException ("Git range must start like '<rev specification>..'"); }
 
@@ -76,90 +102,229 @@ public class JGitRepository {
         AnyObjectId until = git.getRepository().resolve(untilString);
         if (null == until) { throw new IllegalArgumentException("Could not retrieve 'until' Range part '" + untilString + "'"); }
 
-        result = result.addRange(since, until);
-        return result;
+        return new AnyObjectId[] { since, until };
+    }
+
+    /**
+     * @return whether the repository has a commit-graph which is used by the walks
+     */
+    public boolean hasCommitGraph() {
+        return configuration.isUseCommitGraph() && CommitGraphFiles.exists(repository);
+    }
+
+    /**
+     * Counts the commits {@link #streamCommits(String, Collection, GitCheckpoint, int, Consumer)} walks for the same
+     * range and uninteresting commits, e.g. to estimate the progress of a long scan. Only the commit headers are
+     * parsed, neither bodies nor trees are read. Without a commit-graph this still inflates every commit once.
+     */
+    public long countCommits(String range, Collection<String> uninterestingShas) throws IOException {
+        if (range != null && range.endsWith(".")) { range += "HEAD"; }
+        if (configuration.isUseCommitGraph()) {
+            CommitGraphFiles.enable(repository);
+        }
+
+        long start = System.nanoTime();
+        long count = 0;
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            if (range == null) {
+                for (Ref ref : repository.getRefDatabase().getRefs()) {
+                    if (ref.getObjectId() == null) continue;
+
+                    RevObject peeled = walk.peel(walk.parseAny(ref.getObjectId()));
+                    if (peeled instanceof RevCommit) {
+                        walk.markStart((RevCommit) peeled);
+                    }
+                }
+            } else {
+                AnyObjectId[] sinceAndUntil = resolveRange(range);
+                walk.markUninteresting(walk.parseCommit(sinceAndUntil[0]));
+                walk.markStart(walk.parseCommit(sinceAndUntil[1]));
+            }
+            for (String sha : uninterestingShas) {
+                if (!ObjectId.isId(sha)) continue;
+
+                ObjectId commitId = ObjectId.fromString(sha);
+                if (repository.getObjectDatabase().has(commitId)) {
+                    walk.markUninteresting(walk.parseCommit(commitId));
+                }
+            }
+            while (walk.next() != null) {
+                count++;
+            }
+        }
+        logger.debug("Counted #{} commits in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+        return count;
     }
 
     public List<GitCommit> findCommits(String range) throws IOException {
-        List<GitCommit> result = new LinkedList<>();
+        List<GitCommit> result = new ArrayList<>();
+        streamCommits(range, Integer.MAX_VALUE, result::addAll);
+        return result;
+    }
 
+    public void streamCommits(String range, int batchSize, Consumer<List<GitCommit>> batchConsumer) throws IOException {
+        streamCommits(range, Collections.emptySet(), null, batchSize, batchConsumer);
+    }
+
+    /**
+     * Walks the commits of the given range and hands them over in batches of at most <code>batchSize</code> commits
+     * as soon as they have been read, so only one batch has to be kept in memory at any time.
+     *
+     * Parents of a commit are only given as SHA references, they have to be resolved by the consumer.
+     *
+     * Commits reachable from one of the <code>uninterestingShas</code> (e.g. heads stored by a previous scan) are
+     * not walked. SHAs which are unknown to the repository are ignored.
+     *
+     * If a checkpoint of the same walk is given, the commits up to the checkpoint are skipped without diffing them.
+     * If the walk does not match the checkpoint, all commits are handed over.
+     */
+    public void streamCommits(String range, Collection<String> uninterestingShas, GitCheckpoint resumeFrom, int batchSize, Consumer<List<GitCommit>> batchConsumer) throws IOException {
         ObjectId head = repository.resolve("HEAD");
         logger.debug("Found head: {}", head);
 
-        RevWalk rw = new RevWalk(repository);
-
         if (range != null && range.endsWith(".")) { range += "HEAD"; }
 
+        File temporaryCommitGraph = null;
         try (git) {
-            LogCommand logCommand = getLogWithOrWithOutRange(range);
-            Iterable<RevCommit> commits = logCommand.call();
-
-            DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE);
-            df.setRepository(repository);
-            df.setDiffComparator(RawTextComparator.DEFAULT);
-            df.setDetectRenames(true);
-
-            for (RevCommit commit : commits) {
-                logger.debug("Commit-Message: '{}'", commit.getShortMessage());
-                final Date date = new Date(1000 * (long) commit.getCommitTime());
-                final GitCommit gitCommit = retrieveCommit(ObjectId.toString(commit.getId()));
-                gitCommit.setAuthor(makeStringOfIdent(commit.getAuthorIdent()));
-                gitCommit.setCommitter(makeStringOfIdent(commit.getCommitterIdent()));
-                gitCommit.setDate(date);
-                gitCommit.setMessage(commit.getFullMessage());
-                gitCommit.setShortMessage(commit.getShortMessage());
-                gitCommit.setEncoding(commit.getEncodingName());
-                addCommitParents(rw, df, commit, gitCommit);
-
-                result.add(gitCommit);
+            if (configuration.isUseCommitGraph()) {
+                CommitGraphFiles.enable(repository);
+                if (configuration.isWriteCommitGraph()) {
+                    temporaryCommitGraph = CommitGraphFiles.writeIfMissing(repository);
+                }
             }
+            if (resumeFrom != null) {
+                if (walkCommits(range, uninterestingShas, resumeFrom, batchSize, batchConsumer)) return;
+                logger.warn("Commits of Git repository '{}' do not match {}, walking all commits", path, resumeFrom);
+            }
+            walkCommits(range, uninterestingShas, null, batchSize, batchConsumer);
         } catch (GitAPIException e) {
             throw new IllegalStateException("Could not read logs from Git repository '" + path + "'", e);
         } finally {
-            rw.close();
             repository.close();
+            CommitGraphFiles.delete(temporaryCommitGraph);
         }
-
-        logger.debug("Found #{} commits", result.size());
-        return result;
     }
 
-    private String makeStringOfIdent(PersonIdent authorIdent) {
-        return authorIdent.getName() + " <" +
-               authorIdent.getEmailAddress() + ">";
-    }
+    /*
+     * Returns false if the walk does not match the checkpoint, nothing has been handed over then.
+     */
+    private boolean walkCommits(String range, Collection<String> uninterestingShas, GitCheckpoint resumeFrom, int batchSize, Consumer<List<GitCommit>> batchConsumer) throws IOException, GitAPIException {
+        long skip = resumeFrom != null ? resumeFrom.getCommits() : 0;
+        long walked = 0;
+        int numberOfCommits = 0;
+        // authors and committers repeat throughout the history, all commits share one string per identity
+        Map<String, String> identities = new HashMap<>();
+        try (CommitDiffer differ = new CommitDiffer(repository, configuration, paths)) {
+            LogCommand logCommand = getLogWithOrWithOutRange(range);
+            markUninteresting(logCommand, uninterestingShas);
+            Iterable<RevCommit> commits = logCommand.call();
+
+            List<GitCommit> batch = new ArrayList<>();
+            for (RevCommit commit : commits) {
+                if (++walked <= skip) {
+                    commit.disposeBody();
+                    if (walked == skip && !ObjectId.toString(commit.getId()).equals(resumeFrom.getLastSha())) return false;
+                    continue;
+                }
+
+                GitCommit gitCommit = toGitCommit(commit, identities);
+                differ.submit(commit, gitCommit);
+                batch.add(gitCommit);
+                // the walk keeps every visited commit, so drop the message buffer once it has been copied
+                commit.disposeBody();
+
+                if (batch.size() >= batchSize) {
+                    differ.awaitAll();
+                    numberOfCommits += batch.size();
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (walked < skip) return false;
 
-    private GitCommit retrieveCommit (String sha) {
-        if (!commits.containsKey(sha)) {
-            commits.put(sha, new GitCommit (sha));
+            if (!batch.isEmpty()) {
+                differ.awaitAll();
+                numberOfCommits += batch.size();
+                batchConsumer.accept(batch);
+            }
         }
-        return commits.get(sha);
+
+        logger.debug("Found #{} commits, skipped #{} already stored commits", numberOfCommits, skip);
+        return true;
     }
 
-    private void addCommitParents(final RevWalk rw, final DiffFormatter df, final RevCommit revCommit, final GitCommit gitCommit) throws IOException {
-        for (int i = 0; i < revCommit.getParentCount(); i++) {
-            ObjectId parentId = revCommit.getParent(i).getId();
-            RevCommit parent = rw.parseCommit(parentId);
+    /**
+     * Identifies a commit walk by the range, the uninteresting commits and the current refs of the repository.
+     * For the same walk id the commits are walked in the same order.
+     */
+    public String getWalkId(String range, Collection<String> uninterestingShas) throws IOException {
+        if (range != null && range.endsWith(".")) { range += "HEAD"; }
 
-            List<DiffEntry> diffs = df.scan(parent.getTree(), revCommit.getTree());
-            for (DiffEntry diff : diffs) {
-                final GitChange gitChange = new GitChange(
-                        diff.getChangeType().name(),
-                        diff.getOldPath(),
-                        diff.getNewPath()
-                );
-                logger.debug(gitChange.toString());
-                gitCommit.getGitChanges().add(gitChange);
+        StringBuilder walk = new StringBuilder();
+        walk.append("range ").append(range).append('\n');
+        for (String sha : new TreeSet<>(uninterestingShas)) {
+            walk.append("not ").append(sha).append('\n');
+        }
+        if (range != null) {
+            for (String revision : range.split("\\.\\.")) {
+                walk.append(revision).append(' ').append(ObjectId.toString(repository.resolve(revision))).append('\n');
             }
+        } else {
+            Map<String, String> refs = new TreeMap<>();
+            for (Ref ref : repository.getRefDatabase().getRefs()) {
+                if (ref.getObjectId() != null) {
+                    refs.put(ref.getName(), ObjectId.toString(ref.getObjectId()));
+                }
+            }
+            refs.forEach((name, sha) -> walk.append(name).append(' ').append(sha).append('\n'));
+        }
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            return ObjectId.toString(formatter.idFor(Constants.OBJ_BLOB, walk.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
 
-            String parentSha = ObjectId.toString(parentId);
-            final GitCommit parentCommit = retrieveCommit(parentSha);
-            gitCommit.getParents().add(parentCommit);
+    private void markUninteresting(LogCommand logCommand, Collection<String> uninterestingShas) throws IOException {
+        int marked = 0;
+        for (String sha : uninterestingShas) {
+            if (!ObjectId.isId(sha)) continue;
+
+            ObjectId commitId = ObjectId.fromString(sha);
+            if (repository.getObjectDatabase().has(commitId)) {
+                logCommand.not(commitId);
+                marked++;
+            } else {
+                logger.debug("Stored commit {} is not part of the repository anymore", sha);
+            }
         }
+        logger.debug("Marked #{} commits as uninteresting", marked);
+    }
+
+    private GitCommit toGitCommit(final RevCommit commit, final Map<String, String> identities) {
+        logger.debug("Commit-Message: '{}'", commit.getShortMessage());
+        final Date date = new Date(1000 * (long) commit.getCommitTime());
+        final GitCommit gitCommit = new GitCommit(commit);
+        gitCommit.setAuthor(identities.computeIfAbsent(makeStringOfIdent(commit.getAuthorIdent()), identity -> identity));
+        gitCommit.setCommitter(identities.computeIfAbsent(makeStringOfIdent(commit.getCommitterIdent()), identity -> identity));
+        gitCommit.setDate(date);
+        gitCommit.setMessage(commit.getFullMessage());
+        gitCommit.setShortMessage(commit.getShortMessage());
+        gitCommit.setEncoding(commit.getEncodingName());
+        // Only references by SHA, the parents themselves are resolved via the commit cache while storing
+        for (RevCommit parent : commit.getParents()) {
+            gitCommit.getParents().add(new GitCommit(parent));
+        }
+        return gitCommit;
+    }
+
+    private String makeStringOfIdent(PersonIdent authorIdent) {
+        return authorIdent.getName() + " <" +
+               authorIdent.getEmailAddress() + ">";
     }
 
     private Repository getRepository() throws IOException {
         logger.debug("Opening repository for git directory '{}'", path);
+        installWindowCacheConfig();
         FileRepositoryBuilder builder = new FileRepositoryBuilder();
         Repository repository = builder
                 .setGitDir(new File(path))
@@ -169,6 +334,42 @@ public class JGitRepository {
         return repository;
     }
 
+    /*
+     * Reconfiguring the window cache drops all cached windows, so it is only done if settings are given and differ
+     * from the installed ones. Without settings the JGit defaults (or the settings of another plugin) are kept.
+     */
+    private void installWindowCacheConfig() {
+        if (!configuration.hasWindowCacheSettings()) return;
+
+        WindowCacheConfig windowCacheConfig = new WindowCacheConfig();
+        if (configuration.getPackedGitLimit() != null) {
+            windowCacheConfig.setPackedGitLimit(configuration.getPackedGitLimit());
+        }
+        if (configuration.getPackedGitWindowSize() != null) {
+            windowCacheConfig.setPackedGitWindowSize(configuration.getPackedGitWindowSize());
+        }
+        if (configuration.getDeltaBaseCacheLimit() != null) {
+            windowCacheConfig.setDeltaBaseCacheLimit(configuration.getDeltaBaseCacheLimit());
+        }
+        if (configuration.getPackedGitOpenFiles() != null) {
+            windowCacheConfig.setPackedGitOpenFiles(configuration.getPackedGitOpenFiles());
+        }
+        if (configuration.getPackedGitMmap() != null) {
+            windowCacheConfig.setPackedGitMMAP(configuration.getPackedGitMmap());
+        }
+
+        String settings = String.format("packedGitLimit=%d, packedGitWindowSize=%d, deltaBaseCacheLimit=%d, packedGitOpenFiles=%d, packedGitMMAP=%b",
+                windowCacheConfig.getPackedGitLimit(), windowCacheConfig.getPackedGitWindowSize(), windowCacheConfig.getDeltaBaseCacheLimit(),
+                windowCacheConfig.getPackedGitOpenFiles(), windowCacheConfig.isPackedGitMMAP());
+        synchronized (JGitRepository.class) {
+            if (settings.equals(installedWindowCacheSettings)) return;
+
+            windowCacheConfig.install();
+            installedWindowCacheSettings = settings;
+        }
+        logger.info("Configured JGit window cache with {}", settings);
+    }
+
     public GitBranch findHead() throws IOException {
         ObjectId head = repository.resolve(Constants.HEAD);
         return new GitBranch (Constants.HEAD, ObjectId.toString(head));
@@ -193,31 +394,30 @@ public class JGitRepository {
         return result;
     }
 
-    private RevCommit resolveFirstCommitForTag (Git git, Ref tagRef) throws IOException, GitAPIException {
-        LogCommand log = git.log();
-        Ref peeledRef = git.getRepository().getRefDatabase().peel(tagRef);
-        if(peeledRef.getPeeledObjectId() != null) {
-            log.add(peeledRef.getPeeledObjectId());
-        } else {
-            log.add(tagRef.getObjectId());
-        }
-
-        Iterable<RevCommit> logs = log.call();
-
-        return logs.iterator().next();
-    }
-
+    /**
+     * Resolves all tags with a single {@link RevWalk}: annotated tags are peeled down to their commit and their tagger,
+     * date and message are read in the same pass.
+     */
     public List<GitTag> findTags() throws IOException {
         List<GitTag> result = new LinkedList<>();
 
-        try (git) {
+        try (git; RevWalk rw = new RevWalk(repository)) {
             List<Ref> tags = git.tagList().call();
             for (Ref tagRef : tags) {
                 String label = tagRef.getName();
-                RevCommit firstCommit = resolveFirstCommitForTag(git, tagRef);
-                String objectId = ObjectId.toString(firstCommit);
+                RevObject tagObject = rw.parseAny(tagRef.getObjectId());
+                RevObject peeled = rw.peel(tagObject);
+                if (!(peeled instanceof RevCommit)) {
+                    logger.debug ("Ignoring Tag '{}' which does not point to a commit", label);
+                    continue;
+                }
+
+                String objectId = ObjectId.toString(peeled);
                 logger.debug ("Found Tag '{}' (name = '{}', sha = '{}')", tagRef, label, objectId);
                 GitTag newTag = new GitTag (label, objectId);
+                if (tagObject instanceof RevTag) {
+                    addAnnotation((RevTag) tagObject, newTag);
+                }
                 result.add (newTag);
             }
         } catch (GitAPIException e) {
@@ -226,4 +426,13 @@ public class JGitRepository {
 
         return result;
     }
+
+    private void addAnnotation(RevTag revTag, GitTag gitTag) {
+        PersonIdent taggerIdent = revTag.getTaggerIdent();
+        if (taggerIdent != null) {
+            gitTag.setTagger(makeStringOfIdent(taggerIdent));
+            gitTag.setDate(Date.from(taggerIdent.getWhenAsInstant()));
+        }
+        gitTag.setMessage(revTag.getFullMessage());
+    }
 }
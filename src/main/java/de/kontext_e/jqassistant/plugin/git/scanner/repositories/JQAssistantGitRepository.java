@@ -3,10 +3,13 @@ package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
 import com.buschmais.jqassistant.core.store.api.Store;
 import com.buschmais.xo.api.Query.Result;
 import com.buschmais.xo.api.Query.Result.CompositeRowObject;
+import de.kontext_e.jqassistant.plugin.git.scanner.jfr.StoreLookupEvent;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -16,7 +19,8 @@ public class JQAssistantGitRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(JQAssistantGitRepository.class);
 
     public static Map<String, GitBranchDescriptor> importExistingBranchesFromStore(Store store, GitRepositoryDescriptor gitRepositoryDescriptor) {
-        String query = "MATCH (repo:Git:Repository)-[*]->(branch:Branch) WHERE repo.fileName = $path RETURN branch";
+        String query = "MATCH (repo:Git:Repository)-[:HAS_BRANCH]->(branch:Git:Branch) WHERE repo.fileName = $path RETURN branch";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("path", gitRepositoryDescriptor.getFileName()))){
             Map<String, GitBranchDescriptor> branches = new HashMap<>();
             for (CompositeRowObject row : result) {
@@ -26,12 +30,15 @@ public class JQAssistantGitRepository {
             return branches;
         } catch (Exception e) {
             LOGGER.error("Error while importing existing git branches", e);
+        } finally {
+            event.finish(query, 1);
         }
         return new HashMap<>();
     }
 
     public static Map<String, GitTagDescriptor> importExistingTagsFromStore(Store store, GitRepositoryDescriptor gitRepositoryDescriptor) {
-        String query = "MATCH (repo:Git:Repository)-[*]->(t:Tag) WHERE repo.fileName = $path RETURN t";
+        String query = "MATCH (repo:Git:Repository)-[:HAS_TAG]->(t:Git:Tag) WHERE repo.fileName = $path RETURN t";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query,  Map.of("path", gitRepositoryDescriptor.getFileName()))){
             Map<String, GitTagDescriptor> tags = new HashMap<>();
             for (CompositeRowObject row : result) {
@@ -41,64 +48,145 @@ public class JQAssistantGitRepository {
             return tags;
         } catch (Exception e) {
             LOGGER.error("Error while importing existing git tags", e);
+        } finally {
+            event.finish(query, 1);
         }
         return new HashMap<>();
     }
 
     public static String findShaOfLatestScannedCommitOfBranch(Store store, String branch) {
         String query = "MATCH (b:Branch)-[:HAS_HEAD]->(n:Commit) where b.name = $sha return n.sha";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("sha", branch))) {
             return result.iterator().next().get("n.sha", String.class);
         } catch (Exception e) {
             LOGGER.debug("Error while looking for most recent scanned commit: {}", String.valueOf(e));
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
     public static GitRepositoryDescriptor getExistingRepositoryDescriptor(Store store, String absolutePath) {
         String query = "MATCH (c:Repository) where c.fileName = $path return c";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("path", absolutePath))) {
             return result.iterator().next().get("c", GitRepositoryDescriptor.class);
         } catch (Exception e) {
             LOGGER.debug("Error while looking for existing git repository: {}", String.valueOf(e));
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
     public static GitCommitDescriptor getCommitDescriptorFromDB(Store store, String sha) {
         String query = "MATCH (c:Commit) where c.sha = $sha return c";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("sha", sha))) {
             return result.iterator().next().get("c", GitCommitDescriptor.class);
         } catch (NoSuchElementException e){
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
     public static GitAuthorDescriptor getAuthorDescriptorFromDB(Store store, String identString) {
         String query = "MATCH (a:Author) where a.identString = $ident return a";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("ident", identString))) {
             return result.iterator().next().get("a", GitAuthorDescriptor.class);
         } catch (NoSuchElementException e){
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
     public static GitCommitterDescriptor getCommitterDescriptorFromDB(Store store, String identString) {
         String query = "MATCH (c:Committer) where c.identString = $ident return c";
+        StoreLookupEvent event = StoreLookupEvent.start();
         try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("ident", identString))) {
             return result.iterator().next().get("c", GitCommitterDescriptor.class);
         } catch (NoSuchElementException e){
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
-    public static GitFileDescriptor getFileDescriptorFromDB(Store store, String relativePath) {
-        String query = "MATCH (f:Git:File) where f.relativePath = $path return f";
-        try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("path", relativePath))) {
+    public static GitFileDescriptor getRepositoryFileDescriptorFromDB(Store store, GitRepositoryDescriptor repository, String relativePath) {
+        String query = "MATCH (r:Git:Repository)-[:HAS_FILE]->(f:Git:File) where r.fileName = $repository and f.relativePath = $path return f";
+        StoreLookupEvent event = StoreLookupEvent.start();
+        try (Result<CompositeRowObject> result = store.executeQuery(query, Map.of("repository", repository.getFileName(), "path", relativePath))) {
             return result.iterator().next().get("f", GitFileDescriptor.class);
         } catch (NoSuchElementException e){
             return null;
+        } finally {
+            event.finish(query, 1);
         }
     }
 
+    public static Map<String, GitCommitDescriptor> getCommitDescriptorsFromDB(Store store, Collection<String> shas) {
+        String query = "UNWIND $keys as key MATCH (c:Commit) where c.sha = key return key, c";
+        return getDescriptorsFromDB(store, query, shas, "c", GitCommitDescriptor.class);
+    }
+
+    public static Map<String, GitAuthorDescriptor> getAuthorDescriptorsFromDB(Store store, Collection<String> identStrings) {
+        String query = "UNWIND $keys as key MATCH (a:Author) where a.identString = key return key, a";
+        return getDescriptorsFromDB(store, query, identStrings, "a", GitAuthorDescriptor.class);
+    }
+
+    public static Map<String, GitCommitterDescriptor> getCommitterDescriptorsFromDB(Store store, Collection<String> identStrings) {
+        String query = "UNWIND $keys as key MATCH (c:Committer) where c.identString = key return key, c";
+        return getDescriptorsFromDB(store, query, identStrings, "c", GitCommitterDescriptor.class);
+    }
+
+    public static Map<String, GitAuthorDescriptor> getRepositoryAuthorDescriptorsFromDB(Store store, GitRepositoryDescriptor repository, Collection<String> identStrings) {
+        String query = "UNWIND $keys as key MATCH (r:Git:Repository)-[:HAS_AUTHOR]->(a:Author) where r.fileName = $path and a.identString = key return key, a";
+        return getDescriptorsFromDB(store, query, repository.getFileName(), identStrings, "a", GitAuthorDescriptor.class);
+    }
+
+    public static Map<String, GitCommitterDescriptor> getRepositoryCommitterDescriptorsFromDB(Store store, GitRepositoryDescriptor repository, Collection<String> identStrings) {
+        String query = "UNWIND $keys as key MATCH (r:Git:Repository)-[:HAS_COMMITTER]->(c:Committer) where r.fileName = $path and c.identString = key return key, c";
+        return getDescriptorsFromDB(store, query, repository.getFileName(), identStrings, "c", GitCommitterDescriptor.class);
+    }
+
+    public static Map<String, GitFileDescriptor> getRepositoryFileDescriptorsFromDB(Store store, GitRepositoryDescriptor repository, Collection<String> relativePaths) {
+        String query = "UNWIND $keys as key MATCH (r:Git:Repository)-[:HAS_FILE]->(f:Git:File) where r.fileName = $path and f.relativePath = key return key, f";
+        return getDescriptorsFromDB(store, query, repository.getFileName(), relativePaths, "f", GitFileDescriptor.class);
+    }
+
+    /*
+     * Resolves all given keys with a single query, keys without a matching node are missing in the result.
+     */
+    private static <D> Map<String, D> getDescriptorsFromDB(Store store, String query, Collection<String> keys, String column, Class<D> type) {
+        return getDescriptorsFromDB(store, query, Map.of("keys", new ArrayList<>(keys)), keys.size(), column, type);
+    }
+
+    /*
+     * Like above, restricted to the nodes of the repository with the given path.
+     */
+    private static <D> Map<String, D> getDescriptorsFromDB(Store store, String query, String path, Collection<String> keys, String column, Class<D> type) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("keys", new ArrayList<>(keys));
+        parameters.put("path", path);
+        return getDescriptorsFromDB(store, query, parameters, keys.size(), column, type);
+    }
+
+    private static <D> Map<String, D> getDescriptorsFromDB(Store store, String query, Map<String, Object> parameters, int keys, String column, Class<D> type) {
+        Map<String, D> descriptors = new HashMap<>();
+        if (keys == 0) return descriptors;
+
+        StoreLookupEvent event = StoreLookupEvent.start();
+        try (Result<CompositeRowObject> result = store.executeQuery(query, parameters)) {
+            for (CompositeRowObject row : result) {
+                descriptors.put(row.get("key", String.class), row.get(column, type));
+            }
+        } finally {
+            event.finish(query, keys);
+        }
+        return descriptors;
+    }
 }
@@ -0,0 +1,163 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.repositories;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Restricts a tree walk to the paths matching the include globs and none of the exclude globs.
+ *
+ * The globs use the syntax of .gitignore: <code>*</code> and <code>?</code> do not match a '/',
+ * <code>**</code> matches any number of directories, and a glob without a '/' matches the file or directory
+ * name in any directory (<code>*.java</code>). A glob matching a directory matches everything below it
+ * (<code>src</code>, <code>node_modules</code>). Subtrees which cannot contain included paths or which are
+ * excluded are not entered at all.
+ */
+class PathGlobFilter extends TreeFilter {
+
+    private final List<Glob> includes;
+    private final List<Glob> excludes;
+
+    private PathGlobFilter(List<Glob> includes, List<Glob> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * @return the filter for the given globs, {@link TreeFilter#ALL} if there are none
+     */
+    static TreeFilter create(Collection<String> includes, Collection<String> excludes) {
+        if (includes.isEmpty() && excludes.isEmpty()) return TreeFilter.ALL;
+
+        return new PathGlobFilter(compile(includes), compile(excludes));
+    }
+
+    private static List<Glob> compile(Collection<String> globs) {
+        List<Glob> compiled = new ArrayList<>(globs.size());
+        for (String glob : globs) {
+            compiled.add(new Glob(glob));
+        }
+        return compiled;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        String path = walker.getPathString();
+        if (matchesAny(excludes, path)) return false;
+        if (includes.isEmpty() || matchesAny(includes, path)) return true;
+
+        return walker.isSubtree() && mayContainAny(includes, path);
+    }
+
+    /*
+     * Matches the path itself or one of its parent directories.
+     */
+    private static boolean matchesAny(List<Glob> globs, String path) {
+        for (Glob glob : globs) {
+            if (glob.matches(path)) return true;
+        }
+        for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+            String directory = path.substring(0, slash);
+            for (Glob glob : globs) {
+                if (glob.matches(directory)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayContainAny(List<Glob> globs, String directory) {
+        for (Glob glob : globs) {
+            if (glob.mayMatchBelow(directory)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PathGlobFilter[includes=" + includes + ", excludes=" + excludes + "]";
+    }
+
+    private static class Glob {
+        private final String glob;
+        private final String[] segments;
+        private final Pattern[] segmentPatterns;
+        private final Pattern pattern;
+
+        Glob(String glob) {
+            String trimmed = glob.trim();
+            while (trimmed.startsWith("/")) trimmed = trimmed.substring(1);
+            while (trimmed.endsWith("/")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+            if (trimmed.isEmpty()) { throw new IllegalArgumentException("Path glob must not be empty but was '" + glob + "'"); }
+
+            this.glob = trimmed;
+            // like in .gitignore a glob without a '/' matches the name in any directory
+            this.segments = trimmed.contains("/") ? trimmed.split("/") : new String[] {"**", trimmed};
+            this.segmentPatterns = new Pattern[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                segmentPatterns[i] = Pattern.compile(toRegex(segments[i]));
+            }
+            this.pattern = Pattern.compile(toRegex(String.join("/", segments)));
+        }
+
+        boolean matches(String path) {
+            return pattern.matcher(path).matches();
+        }
+
+        /*
+         * Whether the leading segments of the glob allow paths below the directory.
+         */
+        boolean mayMatchBelow(String directory) {
+            String[] directories = directory.split("/");
+            for (int i = 0; i < directories.length; i++) {
+                if (i >= segments.length) return false;
+                if (segments[i].equals("**")) return true;
+                if (!segmentPatterns[i].matcher(directories[i]).matches()) return false;
+            }
+            return true;
+        }
+
+        private static String toRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            int i = 0;
+            while (i < glob.length()) {
+                char c = glob.charAt(i);
+                if (glob.startsWith("**/", i)) {
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                } else if (glob.startsWith("**", i)) {
+                    regex.append(".*");
+                    i += 2;
+                } else if (c == '*') {
+                    regex.append("[^/]*");
+                    i++;
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                    i++;
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    i++;
+                }
+            }
+            return regex.toString();
+        }
+
+        @Override
+        public String toString() {
+            return glob;
+        }
+    }
+}
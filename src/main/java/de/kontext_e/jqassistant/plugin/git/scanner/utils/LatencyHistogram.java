@@ -0,0 +1,86 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.utils;
+
+import java.util.Arrays;
+
+/**
+ * Counts latencies in buckets of powers of two microseconds: bucket 0 holds latencies below 1 microsecond, bucket i
+ * the ones from 2^(i-1) up to 2^i microseconds. Percentiles are reported as the upper bound of their bucket, so they
+ * are at most twice the real value. Not safe for use by several threads.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final long[] counts;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    private LatencyHistogram(LatencyHistogram histogram) {
+        this.counts = Arrays.copyOf(histogram.counts, BUCKETS);
+        this.count = histogram.count;
+        this.totalNanos = histogram.totalNanos;
+        this.maxNanos = histogram.maxNanos;
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1_000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts[bucket]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * @return a copy which does not change with further records
+     */
+    public LatencyHistogram snapshot() {
+        return new LatencyHistogram(this);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return count > 0 ? totalNanos / count : 0;
+    }
+
+    /**
+     * @param percentile e.g. 99 for the latency which 99% of the records do not exceed
+     * @return the upper bound of the bucket of the percentile, at most the maximum latency
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile <= 0 || percentile > 100) { throw new IllegalArgumentException("Percentile must be in (0, 100]: " + percentile); }
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long counted = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counted += counts[bucket];
+            if (counted >= rank) {
+                return Math.min(maxNanos, (1L << bucket) * 1_000);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms", count,
+                getMeanNanos() / 1e6, getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6, maxNanos / 1e6);
+    }
+}
@@ -0,0 +1,86 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.utils;
+
+/**
+ * Interns the file paths of a repository and numbers them consecutively from 0.
+ *
+ * Every diff hands out new strings for the same paths. The changes keep the interned string and its id instead,
+ * so each path is held in memory once, and the files of a scan can be looked up by id in an array.
+ *
+ * Safe for use by several threads, the diff workers intern concurrently while the store looks up paths.
+ */
+public final class PathTable {
+
+    /**
+     * The id of a path which has not been interned.
+     */
+    public static final int NO_ID = -1;
+
+    private String[] paths = new String[1024];
+    // open addressing with linear probing, a slot holds id + 1 and 0 if it is free
+    private int[] slots = new int[2048];
+    private int size;
+
+    /**
+     * @return the id of the path, the same for equal paths
+     */
+    public synchronized int intern(String path) {
+        int mask = slots.length - 1;
+        for (int i = index(path, mask); ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return add(path, i);
+            }
+            if (paths[slot - 1].equals(path)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the interned path of the id
+     * @throws IllegalArgumentException if no path has the id
+     */
+    public synchronized String path(int id) {
+        if (id < 0 || id >= size) { throw new IllegalArgumentException("Unknown path id: " + id); }
+        return paths[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int add(String path, int slot) {
+        if (size == paths.length) {
+            String[] grown = new String[size * 2];
+            System.arraycopy(paths, 0, grown, 0, size);
+            paths = grown;
+        }
+        int id = size++;
+        paths[id] = path;
+        slots[slot] = id + 1;
+        // keep the load factor below 1/2, so probe sequences stay short
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = index(paths[id], mask);
+            while (rehashed[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            rehashed[i] = id + 1;
+        }
+        slots = rehashed;
+    }
+
+    private static int index(String path, int mask) {
+        int hash = path.hashCode();
+        // paths share long prefixes, spread the high bits of the hash into the low ones used as index
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
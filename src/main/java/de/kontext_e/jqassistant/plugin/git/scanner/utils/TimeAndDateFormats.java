@@ -1,12 +0,0 @@
-package de.kontext_e.jqassistant.plugin.git.scanner.utils;
-
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-
-public class TimeAndDateFormats {
-
-    public static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-    public static final DateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss Z");
-    public static final DateFormat DATE_TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z");
-
-}
@@ -0,0 +1,73 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Formats timestamps as date (<code>yyyy-MM-dd</code>), time (<code>HH:mm:ss Z</code>) and date with time
+ * (<code>yyyy-MM-dd HH:mm:ss Z</code>) in a fixed time zone.
+ *
+ * Safe for use by several threads. The formats have a resolution of seconds and all changes of a commit share its
+ * timestamp, so the strings of recently formatted epoch seconds are cached and handed out again without formatting.
+ */
+public final class TimestampFormatter {
+
+    /**
+     * Formats in the default time zone of the JVM.
+     */
+    public static final TimestampFormatter DEFAULT = new TimestampFormatter(ZoneId.systemDefault());
+
+    private static final int CACHE_SIZE = 256;
+
+    private final DateTimeFormatter dateTimeFormatter;
+    // direct mapped by epoch second, entries are immutable so a racy read sees either an old or a new one
+    private final Formatted[] cache = new Formatted[CACHE_SIZE];
+
+    public TimestampFormatter(ZoneId zone) {
+        this.dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z").withZone(zone);
+    }
+
+    public String formatDate(Date date) {
+        return formatted(date.getTime()).date;
+    }
+
+    public String formatTime(Date date) {
+        return formatted(date.getTime()).time;
+    }
+
+    public String formatDateTime(Date date) {
+        return formatDateTime(date.getTime());
+    }
+
+    public String formatDateTime(long epochMillis) {
+        return formatted(epochMillis).dateTime;
+    }
+
+    private Formatted formatted(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        int index = (int) (epochSecond ^ (epochSecond >>> 32)) & (CACHE_SIZE - 1);
+        Formatted formatted = cache[index];
+        if (formatted == null || formatted.epochSecond != epochSecond) {
+            formatted = new Formatted(epochSecond, dateTimeFormatter.format(Instant.ofEpochSecond(epochSecond)));
+            cache[index] = formatted;
+        }
+        return formatted;
+    }
+
+    private static final class Formatted {
+        private final long epochSecond;
+        private final String dateTime;
+        private final String date;
+        private final String time;
+
+        Formatted(long epochSecond, String dateTime) {
+            this.epochSecond = epochSecond;
+            this.dateTime = dateTime;
+            int separator = dateTime.indexOf(' ');
+            this.date = dateTime.substring(0, separator);
+            this.time = dateTime.substring(separator + 1);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.kontext_e.jqassistant.plugin.git.store.descriptor;
 
+import com.buschmais.xo.neo4j.api.annotation.Indexed;
 import com.buschmais.xo.neo4j.api.annotation.Label;
 import com.buschmais.xo.neo4j.api.annotation.Property;
 import com.buschmais.xo.neo4j.api.annotation.Relation;
@@ -12,6 +13,7 @@ import com.buschmais.xo.neo4j.api.annotation.Relation;
  */
 @Label("Branch")
 public interface GitBranchDescriptor extends GitDescriptor {
+    @Indexed
     @Property("name")
     String getName();
     void setName(String name);
@@ -1,5 +1,6 @@
 package de.kontext_e.jqassistant.plugin.git.store.descriptor;
 
+import com.buschmais.xo.neo4j.api.annotation.Indexed;
 import com.buschmais.xo.neo4j.api.annotation.Label;
 import com.buschmais.xo.neo4j.api.annotation.Property;
 import com.buschmais.xo.neo4j.api.annotation.Relation;
@@ -10,6 +11,7 @@ import java.util.List;
 @Label("Commit")
 public interface GitCommitDescriptor extends GitDescriptor {
 
+    @Indexed
     @Property("sha")
     String getSha();
     void setSha(String sha);
@@ -46,6 +48,13 @@ public interface GitCommitDescriptor extends GitDescriptor {
     String getEncoding();
     void setEncoding(String encoding);
 
+    /**
+     * How renames were detected for the changes of this commit (full, exact or none).
+     */
+    @Property("renameDetection")
+    String getRenameDetection();
+    void setRenameDetection(String renameDetection);
+
     @Relation("CONTAINS_CHANGE")
     List<GitChangeDescriptor> getChanges();
 
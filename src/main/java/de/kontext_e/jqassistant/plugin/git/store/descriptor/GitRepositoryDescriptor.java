@@ -2,7 +2,9 @@ package de.kontext_e.jqassistant.plugin.git.store.descriptor;
 
 import com.buschmais.jqassistant.plugin.common.api.model.FileDescriptor;
 import com.buschmais.jqassistant.plugin.common.api.model.NamedDescriptor;
+import com.buschmais.xo.neo4j.api.annotation.Indexed;
 import com.buschmais.xo.neo4j.api.annotation.Label;
+import com.buschmais.xo.neo4j.api.annotation.Property;
 import com.buschmais.xo.neo4j.api.annotation.Relation;
 
 import java.util.List;
@@ -10,6 +12,12 @@ import java.util.List;
 @Label("Repository")
 public interface GitRepositoryDescriptor extends GitDescriptor, NamedDescriptor, FileDescriptor {
 
+    // redeclared from FileDescriptor because of @Indexed, repositories are looked up by their path
+    @Indexed
+    @Property("fileName")
+    String getFileName();
+    void setFileName(String fileName);
+
     @Relation("HAS_COMMIT")
     List<GitCommitDescriptor> getCommits();
 
@@ -32,4 +40,26 @@ public interface GitRepositoryDescriptor extends GitDescriptor, NamedDescriptor,
     GitCommitDescriptor getHead();
 
     void setHead(GitCommitDescriptor headDescriptor);
+
+    /*
+     * Checkpoint of a scan which is still running (or has been interrupted), written whenever the stored commits are
+     * committed (see commits per transaction) and removed when all commits have been stored.
+     */
+
+    @Property("checkpointWalk")
+    String getCheckpointWalk();
+    void setCheckpointWalk(String walkId);
+
+    @Property("checkpointCommits")
+    Long getCheckpointCommits();
+    void setCheckpointCommits(Long commits);
+
+    @Property("checkpointSha")
+    String getCheckpointSha();
+    void setCheckpointSha(String sha);
+
+    // "<parent sha>:<child sha>,<child sha>" of stored commits whose parent has not been stored yet
+    @Property("checkpointPendingParents")
+    String[] getCheckpointPendingParents();
+    void setCheckpointPendingParents(String[] pendingParents);
 }
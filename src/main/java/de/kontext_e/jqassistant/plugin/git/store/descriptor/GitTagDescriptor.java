@@ -5,7 +5,7 @@ import com.buschmais.xo.neo4j.api.annotation.Property;
 import com.buschmais.xo.neo4j.api.annotation.Relation;
 
 /**
- * A Git Branch (either remote or local).
+ * A Git Tag, annotated tags additionally carry tagger, date and message.
  *
  * @author Gerd Aschemann - gerd@aschemann.net - @GerdAschemann
  * @since 1.1.0
@@ -16,6 +16,22 @@ public interface GitTagDescriptor extends GitDescriptor {
     String getLabel();
     void setLabel(String name);
 
+    @Property("tagger")
+    String getTagger();
+    void setTagger(String tagger);
+
+    @Property("date")
+    String getDate();
+    void setDate(String date);
+
+    @Property("epoch")
+    Long getEpoch();
+    void setEpoch(Long epoch);
+
+    @Property("message")
+    String getMessage();
+    void setMessage(String message);
+
     @Relation("ON_COMMIT")
     GitCommitDescriptor getCommit();
     void setCommit(GitCommitDescriptor commit);
@@ -16,6 +16,13 @@ public interface GitChangeDescriptor extends GitDescriptor {
     String getModificationKind();
     void setModificationKind(String modificationKind);
 
+    /**
+     * The SHA of the parent commit the change was computed against, merge commits have changes for several parents.
+     */
+    @Property("parentSha")
+    String getParentSha();
+    void setParentSha(String parentSha);
+
     @Relation("MODIFIES")
     GitFileDescriptor getModifies();
     void setModifies(GitFileDescriptor gitFileDescriptor);
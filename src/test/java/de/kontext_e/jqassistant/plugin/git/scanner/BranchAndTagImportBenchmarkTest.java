@@ -0,0 +1,100 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.test.plugin.AbstractPluginIT;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.GitRepositoryDescriptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.getExistingRepositoryDescriptor;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.importExistingBranchesFromStore;
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.importExistingTagsFromStore;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures loading the existing branches and tags of a repository for generated histories of growing size.
+ * The branch and tag count stays the same, so the lookup must not get noticeably slower with more commits.
+ *
+ * Run with <code>gradle benchmarkTest</code>.
+ */
+@Tag("benchmark")
+class BranchAndTagImportBenchmarkTest extends AbstractPluginIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BranchAndTagImportBenchmarkTest.class);
+
+    private static final int[] HISTORY_SIZES = {1_000, 10_000, 50_000};
+    private static final int BRANCHES_AND_TAGS = 50;
+    private static final int ITERATIONS = 25;
+
+    @AfterEach
+    public void clearStore() {
+        store.beginTransaction();
+        store.executeQuery("MATCH (n) DETACH DELETE n").close();
+        store.commitTransaction();
+    }
+
+    @Test
+    void testImportCostDoesNotDependOnHistorySize() {
+        long[] medianNanos = new long[HISTORY_SIZES.length];
+        for (int i = 0; i < HISTORY_SIZES.length; i++) {
+            String path = "/benchmark/" + HISTORY_SIZES[i] + "/.git";
+            generateRepository(path, HISTORY_SIZES[i]);
+            medianNanos[i] = measureImport(path);
+            LOGGER.info("Importing {} branches and {} tags of a history with {} commits: {} µs (median)",
+                    BRANCHES_AND_TAGS, BRANCHES_AND_TAGS, HISTORY_SIZES[i], medianNanos[i] / 1_000);
+        }
+
+        // generous bounds to stay stable on loaded machines, an expansion over the history grows by orders of magnitude
+        long smallest = medianNanos[0];
+        long largest = medianNanos[medianNanos.length - 1];
+        assertThat(largest).isLessThan(5 * smallest + 10_000_000L);
+    }
+
+    private long measureImport(String path) {
+        store.beginTransaction();
+        try {
+            GitRepositoryDescriptor repository = getExistingRepositoryDescriptor(store, path);
+            long[] nanos = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                int branches = importExistingBranchesFromStore(store, repository).size();
+                int tags = importExistingTagsFromStore(store, repository).size();
+                nanos[i] = System.nanoTime() - start;
+
+                assertThat(branches).isEqualTo(BRANCHES_AND_TAGS);
+                assertThat(tags).isEqualTo(BRANCHES_AND_TAGS);
+            }
+            Arrays.sort(nanos);
+            return nanos[ITERATIONS / 2];
+        } finally {
+            store.commitTransaction();
+        }
+    }
+
+    /*
+     * A linear history where every commit changes one file, with branches and tags spread over the history.
+     */
+    private void generateRepository(String path, int commits) {
+        Map<String, Object> parameters = Map.of("path", path, "commits", commits, "refs", BRANCHES_AND_TAGS);
+        store.beginTransaction();
+        store.executeQuery("CREATE (:Git:Repository:File {fileName: $path})", parameters).close();
+        store.executeQuery("MATCH (r:Git:Repository {fileName: $path}) " +
+                "UNWIND range(1, $commits) AS i " +
+                "CREATE (r)-[:HAS_COMMIT]->(c:Git:Commit {sha: $path + i})-[:CONTAINS_CHANGE]->(:Git:Change {modificationKind: 'M'})-[:MODIFIES]->(f:Git:File {relativePath: $path + (i % 100)}) " +
+                "CREATE (r)-[:HAS_FILE]->(f)", parameters).close();
+        store.executeQuery("UNWIND range(2, $commits) AS i " +
+                "MATCH (c:Git:Commit {sha: $path + i}), (p:Git:Commit {sha: $path + (i - 1)}) " +
+                "CREATE (c)-[:HAS_PARENT]->(p)", parameters).close();
+        store.executeQuery("MATCH (r:Git:Repository {fileName: $path}) " +
+                "UNWIND range(1, $refs) AS i " +
+                "MATCH (c:Git:Commit {sha: $path + (i * ($commits / $refs))}) " +
+                "CREATE (r)-[:HAS_BRANCH]->(:Git:Branch {name: 'heads/branch' + i})-[:HAS_HEAD]->(c) " +
+                "CREATE (r)-[:HAS_TAG]->(:Git:Tag {label: 'tag' + i})-[:ON_COMMIT]->(c)", parameters).close();
+        store.commitTransaction();
+    }
+}
@@ -0,0 +1,117 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The walked commits are kept in a compact model, it must still return what has been walked.
+ */
+class CommitModelTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testCommitsOfOnePersonShareTheIdentity() throws Exception {
+        File gitDirectory = new RepositoryGenerator().commits(200).mergeEvery(10).generate(new File(directory, ".git"));
+        List<GitCommit> commits = new JGitRepository(gitDirectory.getAbsolutePath()).findCommits(null);
+
+        Map<String, String> identities = new HashMap<>();
+        for (GitCommit commit : commits) {
+            String identity = identities.computeIfAbsent(commit.getAuthor(), author -> author);
+            assertThat(commit.getAuthor()).isSameAs(identity);
+            // the generated commits are committed by their authors
+            assertThat(commit.getCommitter()).isSameAs(identity);
+        }
+        // 20 generated authors
+        assertThat(identities.size()).isLessThanOrEqualTo(20);
+        assertThat(commits).hasSize(200);
+    }
+
+    @Test
+    void testParentReferencesKeepTheirSha() throws Exception {
+        File gitDirectory = new RepositoryGenerator().commits(50).mergeEvery(5).generate(new File(directory, ".git"));
+        List<GitCommit> commits = new JGitRepository(gitDirectory.getAbsolutePath()).findCommits(null);
+
+        Map<String, GitCommit> bySha = new HashMap<>();
+        commits.forEach(commit -> bySha.put(commit.getSha(), commit));
+        for (GitCommit commit : commits) {
+            for (GitCommit parent : commit.getParents()) {
+                assertThat(bySha.get(parent.getSha())).isEqualTo(parent);
+                assertThat(parent.getId()).isEqualTo(ObjectId.fromString(parent.getSha()));
+                assertThat(parent.getGitChanges()).isEmpty();
+                assertThat(parent.getParents()).isEmpty();
+            }
+        }
+        assertThat(commits).anyMatch(commit -> commit.getParents().size() == 2);
+    }
+
+    @Test
+    void testShaWhichIsNoObjectId() {
+        GitCommit commit = new GitCommit("12345");
+
+        assertThat(commit.getSha()).isEqualTo("12345");
+        assertThat(commit.getId()).isNull();
+        assertThat(commit).isEqualTo(new GitCommit("12345"));
+        assertThat(commit).isNotEqualTo(new GitCommit("54321"));
+    }
+
+    @Test
+    void testShaOfObjectId() {
+        String sha = "0123456789abcdef0123456789abcdef01234567";
+        GitCommit commit = new GitCommit(ObjectId.fromString(sha));
+
+        assertThat(commit.getSha()).isEqualTo(sha);
+        // the name is only built once
+        assertThat(commit.getSha()).isSameAs(commit.getSha());
+        assertThat(commit).isEqualTo(new GitCommit(sha));
+    }
+
+    @Test
+    void testChangesKeepTypeAndPaths() {
+        PathTable paths = new PathTable();
+        for (DiffEntry.ChangeType changeType : DiffEntry.ChangeType.values()) {
+            GitChange change = new GitChange(changeType, paths, "old/" + changeType, "new/" + changeType);
+
+            assertThat(change.getChangeType()).isEqualTo(changeType);
+            assertThat(change.getModificationKind()).isEqualTo(changeType.name().substring(0, 1));
+            assertThat(change.getOldPath()).isEqualTo("old/" + changeType);
+            assertThat(change.getNewPath()).isEqualTo("new/" + changeType);
+            assertThat(paths.path(change.getOldPathId())).isEqualTo(change.getOldPath());
+            assertThat(paths.path(change.getNewPathId())).isEqualTo(change.getNewPath());
+            if (changeType == DiffEntry.ChangeType.DELETE) {
+                assertThat(change.getRelativePath()).isEqualTo(change.getOldPath());
+                assertThat(change.getRelativePathId()).isEqualTo(change.getOldPathId());
+            } else {
+                assertThat(change.getRelativePath()).isEqualTo(change.getNewPath());
+                assertThat(change.getRelativePathId()).isEqualTo(change.getNewPathId());
+            }
+            // type names and modification kinds are accepted
+            assertThat(new GitChange(changeType.name(), change.getOldPath(), change.getNewPath())).isEqualTo(change);
+            assertThat(new GitChange(change.getModificationKind(), change.getOldPath(), change.getNewPath())).isEqualTo(change);
+        }
+    }
+
+    @Test
+    void testUnchangedPathIsInternedOnce() {
+        PathTable paths = new PathTable();
+        GitChange change = new GitChange(DiffEntry.ChangeType.MODIFY, paths, "src/a.txt", new String("src/a.txt"));
+
+        assertThat(change.getNewPath()).isSameAs(change.getOldPath());
+        assertThat(change.getNewPathId()).isEqualTo(change.getOldPathId());
+        assertThat(paths.size()).isEqualTo(1);
+    }
+}
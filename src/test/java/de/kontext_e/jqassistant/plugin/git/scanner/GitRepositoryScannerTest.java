@@ -8,6 +8,7 @@ import de.kontext_e.jqassistant.plugin.git.scanner.model.GitBranch;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.RenameDetection;
 import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.*;
 import de.kontext_e.jqassistant.plugin.git.store.descriptor.change.*;
@@ -16,11 +17,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class GitRepositoryScannerTest extends AbstractPluginIT {
@@ -65,9 +69,9 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store, times(2)).create(GitBranchDescriptor.class);
-        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[*]->(branch:Branch) WHERE repo.fileName = $path RETURN branch"), anyMap());
-        verify(store).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "1234"));
-        verify(store).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "5678"));
+        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[:HAS_BRANCH]->(branch:Git:Branch) WHERE repo.fileName = $path RETURN branch"), anyMap());
+        verify(store).executeQuery("UNWIND $keys as key MATCH (c:Commit) where c.sha = key return key, c", Map.of("keys", List.of("1234", "5678")));
+        verify(store, never()).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "1234"));
     }
 
     @Test
@@ -88,7 +92,7 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store, never()).create(GitBranchDescriptor.class);
-        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[*]->(branch:Branch) WHERE repo.fileName = $path RETURN branch"), anyMap());
+        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[:HAS_BRANCH]->(branch:Git:Branch) WHERE repo.fileName = $path RETURN branch"), anyMap());
     }
 
     @Test
@@ -103,9 +107,9 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store, times(2)).create(GitTagDescriptor.class);
-        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[*]->(t:Tag) WHERE repo.fileName = $path RETURN t"), anyMap());
-        verify(store).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "1234"));
-        verify(store).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "5678"));
+        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[:HAS_TAG]->(t:Git:Tag) WHERE repo.fileName = $path RETURN t"), anyMap());
+        verify(store).executeQuery("UNWIND $keys as key MATCH (c:Commit) where c.sha = key return key, c", Map.of("keys", List.of("1234", "5678")));
+        verify(store, never()).executeQuery("MATCH (c:Commit) where c.sha = $sha return c", Map.of("sha", "1234"));
     }
 
     @Test
@@ -125,7 +129,22 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store, never()).create(GitBranchDescriptor.class);
-        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[*]->(t:Tag) WHERE repo.fileName = $path RETURN t"), anyMap());
+        verify(store).executeQuery(eq("MATCH (repo:Git:Repository)-[:HAS_TAG]->(t:Git:Tag) WHERE repo.fileName = $path RETURN t"), anyMap());
+    }
+
+    @Test
+    void testAnnotatedTag() throws IOException {
+        Store store = spy(super.store);
+        GitTag gitTag = new GitTag("refs/tags/1.0.0", "1234");
+        gitTag.setTagger("Tagger <tagger@e-mail.com>");
+        gitTag.setDate(new Date(1398851290000L));
+        gitTag.setMessage("Release 1.0.0");
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withTags(gitTag).build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (:Git:Repository)-[:HAS_TAG]->(t:Git:Tag {label: '1.0.0', tagger: 'Tagger <tagger@e-mail.com>', message: 'Release 1.0.0', epoch: 1398851290000}) return t").iterator();
+        assertThat(iterator.hasNext()).isTrue();
     }
 
     @Test
@@ -150,14 +169,14 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
     void testAddAuthor() throws IOException {
         Store store = spy(super.store);
         //Also verify that apostrophes in the authors' name work
-        when(store.executeQuery("MATCH (a:Author) where a.identString = $ident return a", Map.of("ident", "Au'thor<Au'thor@e-mail.com>"))).thenThrow(NoSuchElementException.class);
         GitCommit gitCommit = CommitBuilder.builder().author("Au'thor<Au'thor@e-mail.com>").build();
         JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(gitCommit).build();
 
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store).create(GitAuthorDescriptor.class);
-        verify(store).executeQuery("MATCH (a:Author) where a.identString = $ident return a", Map.of("ident", "Au'thor<Au'thor@e-mail.com>"));
+        verify(store).executeQuery("UNWIND $keys as key MATCH (a:Author) where a.identString = key return key, a", Map.of("keys", List.of("Au'thor<Au'thor@e-mail.com>")));
+        verify(store, never()).executeQuery(eq("MATCH (a:Author) where a.identString = $ident return a"), anyMap());
         verify(gitRepositoryDescriptor).getAuthors();
     }
 
@@ -188,6 +207,60 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         assertThat(iterator.hasNext()).isTrue();
     }
 
+    @Test
+    void testCommitParentRelationAcrossBatches() throws IOException {
+        Store store = spy(super.store);
+        GitCommit parentCommit = CommitBuilder.builder().sha("1234").build();
+        GitCommit childCommit = CommitBuilder.builder().sha("5678").parents(List.of(parentCommit)).build();
+        // Commits are walked from child to parent, each one in its own batch
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(childCommit, parentCommit).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setCommitBatchSize(1);
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false, configuration).scanGitRepo();
+
+        verify(store, times(2)).create(GitCommitDescriptor.class);
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (c:Git:Commit {sha: '5678'})-[r:HAS_PARENT]->(p:Git:Commit {sha: '1234'}) return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testCommitParentRelationByObjectIdAcrossBatches() throws IOException {
+        Store store = spy(super.store);
+        String parentSha = "0123456789abcdef0123456789abcdef01234567";
+        String childSha = "89abcdef0123456789abcdef0123456789abcdef";
+        GitCommit parentCommit = CommitBuilder.builder().sha(parentSha).build();
+        GitCommit childCommit = CommitBuilder.builder().sha(childSha).parents(List.of(new GitCommit(parentSha))).build();
+        // The child is only indexed by its node id when the parent gets stored in the next batch
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(childCommit, parentCommit).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setCommitBatchSize(1);
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false, configuration).scanGitRepo();
+
+        verify(store, times(2)).create(GitCommitDescriptor.class);
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (c:Git:Commit {sha: $child})-[r:HAS_PARENT]->(p:Git:Commit {sha: $parent}) return r", Map.of("child", childSha, "parent", parentSha)).iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testCommitsAcrossTransactions() throws IOException {
+        Store store = spy(super.store);
+        GitCommit parentCommit = CommitBuilder.builder().sha("1234").author("Author<Author@e-mail.com>").build();
+        GitCommit childCommit = CommitBuilder.builder().sha("5678").author("Author<Author@e-mail.com>").parents(List.of(parentCommit)).build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(childCommit, parentCommit).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setCommitBatchSize(1);
+        configuration.setCommitsPerTransaction(1);
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, configuration).scanGitRepo();
+
+        verify(store, times(2)).commitTransaction();
+        verify(store).create(GitAuthorDescriptor.class);
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (a:Git:Author)-[:COMMITTED]->(c:Git:Commit {sha: '5678'})-[r:HAS_PARENT]->(p:Git:Commit {sha: '1234'})<-[:COMMITTED]-(a) return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
     @Test
     void testAlreadyStoredParent() throws IOException {
         Store store = spy(super.store);
@@ -210,14 +283,13 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
     @Test
     void testAddCommitter() throws IOException {
         Store store = spy(super.store);
-        when(store.executeQuery("MATCH (c:Committer) where c.identString = $ident return c", Map.of("ident", "Committer<Committer@e-mail.com>"))).thenThrow(NoSuchElementException.class);
         GitCommit gitCommit = CommitBuilder.builder().committer("Committer<Committer@e-mail.com>").build();
         JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(gitCommit).build();
 
         new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
 
         verify(store).create(GitCommitterDescriptor.class);
-        verify(store).executeQuery("MATCH (c:Committer) where c.identString = $ident return c", Map.of("ident", "Committer<Committer@e-mail.com>"));
+        verify(store).executeQuery("UNWIND $keys as key MATCH (c:Committer) where c.identString = key return key, c", Map.of("keys", List.of("Committer<Committer@e-mail.com>")));
         verify(gitRepositoryDescriptor).getCommits();
     }
 
@@ -246,6 +318,114 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
         verify(store).create(GitUpdateChangeDescriptor.class);
     }
 
+    @Test
+    void testEvictedFilesAreNotCreatedTwice() throws IOException {
+        store = spy(super.store);
+        GitCommit modifyA = CommitBuilder.builder().gitChanges(List.of(new GitChange("M", "a", "a"))).build();
+        GitCommit addB = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "b", "b"))).build();
+        GitCommit addA = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "a", "a"))).build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(modifyA, addB, addA).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setFileCacheSize(1);
+
+        GitRepositoryScanner scanner = new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, configuration);
+        scanner.scanGitRepo();
+
+        verify(store, times(2)).create(GitFileDescriptor.class);
+        assertThat(gitRepositoryDescriptor.getFiles().size()).isEqualTo(2);
+        assertThat(scanner.getCacheStatistics().get(2).getEvictions()).isEqualTo(2L);
+    }
+
+    @Test
+    void testEvictedFilesAreNotBoundToFilesOfOtherRepositories() throws IOException {
+        GitRepositoryDescriptor otherRepository = store.create(GitRepositoryDescriptor.class);
+        otherRepository.setFileName("other/.git");
+        GitFileDescriptor otherFile = store.create(GitFileDescriptor.class);
+        otherFile.setRelativePath("a");
+        otherRepository.getFiles().add(otherFile);
+        store = spy(super.store);
+        GitCommit modifyA = CommitBuilder.builder().gitChanges(List.of(new GitChange("M", "a", "a"))).build();
+        GitCommit addB = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "b", "b"))).build();
+        GitCommit addA = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "a", "a"))).build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(modifyA, addB, addA).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setFileCacheSize(1);
+
+        GitRepositoryScanner scanner = new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, configuration);
+        scanner.scanGitRepo();
+
+        verify(store, times(2)).create(GitFileDescriptor.class);
+        assertThat(gitRepositoryDescriptor.getFiles().size()).isEqualTo(2);
+        assertThat(otherRepository.getFiles().size()).isEqualTo(1);
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (:Git:Repository {fileName: 'other/.git'})-[:HAS_FILE]->(f:Git:File)<-[:MODIFIES]-(:Git:Change) return f").iterator();
+        assertThat(iterator.hasNext()).isFalse();
+        iterator = store.executeQuery("Match (:Git:Repository {fileName: '.git'})-[:HAS_FILE]->(f:Git:File {relativePath: 'a'})<-[:MODIFIES]-(c:Git:Change) return c").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+        iterator.next();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testEvictedAuthorsAreNotCreatedOrAddedTwice() throws IOException {
+        store = spy(super.store);
+        GitCommit byA = CommitBuilder.builder().author("A<a@e-mail.com>").build();
+        GitCommit byB = CommitBuilder.builder().author("B<b@e-mail.com>").build();
+        GitCommit byAAgain = CommitBuilder.builder().author("A<a@e-mail.com>").build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(byA, byB, byAAgain).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setIdentityCacheSize(1);
+
+        GitRepositoryScanner scanner = new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, configuration);
+        scanner.scanGitRepo();
+
+        verify(store, times(2)).create(GitAuthorDescriptor.class);
+        assertThat(gitRepositoryDescriptor.getAuthors().size()).isEqualTo(2);
+        assertThat(scanner.getCacheStatistics().get(0).getEvictions()).isEqualTo(2L);
+    }
+
+    @Test
+    void testScanMetricsCountCommitsChangesAndCreates() throws IOException {
+        GitCommit modifyAddB = CommitBuilder.builder().gitChanges(List.of(new GitChange("M", "a", "a"), new GitChange("A", "b", "b"))).build();
+        GitCommit addA = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "a", "a"))).build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(modifyAddB, addA).build();
+
+        GitRepositoryScanner scanner = new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true);
+        scanner.scanGitRepo();
+
+        ScanMetrics metrics = scanner.getMetrics();
+        assertThat(metrics.getWalkedCommits()).isEqualTo(2L);
+        assertThat(metrics.getStoredCommits()).isEqualTo(2L);
+        assertThat(metrics.getDiffEntries()).isEqualTo(3L);
+        // 2 commits, 3 changes and the files a and b
+        assertThat(metrics.getStoreCreates()).isEqualTo(7L);
+        assertThat(metrics.getPhase(ScanMetrics.Phase.STORE_COMMITS).isNegative()).isFalse();
+    }
+
+    @Test
+    void testChangeParentSha() throws IOException {
+        GitChange change = new GitChange("M", "Old/Path", "Old/Path");
+        change.setParentSha("parent");
+        GitCommit commit = CommitBuilder.builder().gitChanges(List.of(change)).build();
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(commit).build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (:Git:Commit)-[:CONTAINS_CHANGE]->(c:Git:Change {parentSha: 'parent'}) return c").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testRenameDetectionOfCommit() throws IOException {
+        GitCommit commit = CommitBuilder.builder().gitChanges(List.of(new GitChange("A", "a", "a"))).build();
+        commit.setRenameDetection(RenameDetection.EXACT);
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(commit).build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (c:Git:Commit {renameDetection: 'exact'}) return c").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
     @Test
     void testAddChange() throws IOException {
         store = spy(super.store);
@@ -346,7 +526,7 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
 
         // times(2) because head commit of main is already created in test
         verify(store, times(2)).create(GitCommitDescriptor.class);
-        verify(jGitRepository).findCommits("34567..main");
+        verify(jGitRepository).streamCommits(eq("34567..main"), any(), any(), anyInt(), any());
     }
 
     @Test
@@ -378,7 +558,7 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
 
         new GitRepositoryScanner(store, gitRepositoryDescriptor, range, jGitRepository, false).scanGitRepo();
 
-        verify(jGitRepository).findCommits("12345..HEAD");
+        verify(jGitRepository).streamCommits(eq("12345..HEAD"), any(), any(), anyInt(), any());
         verify(store).executeQuery("MATCH (b:Branch)-[:HAS_HEAD]->(n:Commit) where b.name = $sha return n.sha", Map.of("sha", "branch"));
     }
 
@@ -396,7 +576,119 @@ class GitRepositoryScannerTest extends AbstractPluginIT {
 
         new GitRepositoryScanner(store, gitRepositoryDescriptor, range, jGitRepository, false).scanGitRepo();
 
-        verify(jGitRepository).findCommits("12345..HEAD");
+        verify(jGitRepository).streamCommits(eq("12345..HEAD"), any(), any(), anyInt(), any());
         verify(store).executeQuery("MATCH (b:Branch)-[:HAS_HEAD]->(n:Commit) where b.name = $sha return n.sha", Map.of("sha", "branch"));
     }
+
+    @Test
+    void testRescanWithoutRangeStopsAtStoredHeads() throws IOException {
+        store = spy(super.store);
+        GitCommitDescriptor commitDescriptor = store.create(GitCommitDescriptor.class);
+        commitDescriptor.setSha("34567");
+        GitBranchDescriptor branchDescriptor = store.create(GitBranchDescriptor.class);
+        branchDescriptor.setName("heads/main");
+        branchDescriptor.setHead(commitDescriptor);
+        gitRepositoryDescriptor.getBranches().add(branchDescriptor);
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(
+                CommitBuilder.builder().sha("67890").parents(List.of(new GitCommit("34567"))).build(),
+                CommitBuilder.builder().sha("34567").build()
+        ).build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        verify(jGitRepository).streamCommits(isNull(), eq(Set.of("34567")), any(), anyInt(), any());
+        // times(2) because head commit of main is already created in test, walked commits which are stored are skipped
+        verify(store, times(2)).create(GitCommitDescriptor.class);
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (c:Git:Commit {sha: '67890'})-[r:HAS_PARENT]->(p:Git:Commit {sha: '34567'}) return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testResumeFromCheckpoint() throws IOException {
+        GitCommitDescriptor childDescriptor = store.create(GitCommitDescriptor.class);
+        childDescriptor.setSha("5678");
+        GitCommitDescriptor otherChildDescriptor = store.create(GitCommitDescriptor.class);
+        otherChildDescriptor.setSha("9abc");
+        gitRepositoryDescriptor.setCheckpointWalk("walk");
+        gitRepositoryDescriptor.setCheckpointCommits(2L);
+        gitRepositoryDescriptor.setCheckpointSha("5678");
+        gitRepositoryDescriptor.setCheckpointPendingParents(new String[] {"1234:9abc,5678"});
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder()
+                .withWalkId("walk")
+                .withCommits(CommitBuilder.builder().sha("1234").build())
+                .build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        verify(jGitRepository).streamCommits(isNull(), any(), argThat(checkpoint -> checkpoint.getCommits() == 2 && "5678".equals(checkpoint.getLastSha())), anyInt(), any());
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (c:Git:Commit)-[r:HAS_PARENT]->(p:Git:Commit {sha: '1234'}) where c.sha in ['5678', '9abc'] return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+        iterator.next();
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(gitRepositoryDescriptor.getCheckpointWalk()).isNull();
+    }
+
+    @Test
+    void testCheckpointOfOtherWalkIsNotResumed() throws IOException {
+        gitRepositoryDescriptor.setCheckpointWalk("other walk");
+        gitRepositoryDescriptor.setCheckpointCommits(1L);
+        gitRepositoryDescriptor.setCheckpointSha("5678");
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().build();
+
+        new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, false).scanGitRepo();
+
+        verify(jGitRepository).streamCommits(isNull(), any(), isNull(), anyInt(), any());
+    }
+
+    @Test
+    void testConcurrentScanOfRepositories() throws IOException {
+        GitRepositoryDescriptor submoduleDescriptor = store.create(GitRepositoryDescriptor.class);
+        submoduleDescriptor.setFileName(".git/modules/sub");
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(
+                CommitBuilder.builder().sha("5678").parents(List.of(new GitCommit("1234"))).build(),
+                CommitBuilder.builder().sha("1234").build()
+        ).build();
+        JGitRepository submoduleRepository = new JGitRepositoryGitMockBuilder().withCommits(
+                CommitBuilder.builder().sha("defa").parents(List.of(new GitCommit("abcd"))).build(),
+                CommitBuilder.builder().sha("abcd").build()
+        ).build();
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setCommitBatchSize(1);
+
+        ConcurrentRepositoryScan concurrentScan = new ConcurrentRepositoryScan(2);
+        concurrentScan.add(new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, configuration, concurrentScan.getStoreLane()));
+        concurrentScan.add(new GitRepositoryScanner(store, submoduleDescriptor, null, submoduleRepository, true, configuration, concurrentScan.getStoreLane()));
+        concurrentScan.scanAll();
+
+        ResultIterator<Query.Result.CompositeRowObject> iterator = store.executeQuery("Match (:Git:Repository {fileName: '.git'})-[:HAS_COMMIT]->(c:Git:Commit {sha: '5678'})-[r:HAS_PARENT]->(p:Git:Commit {sha: '1234'}) return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+        iterator = store.executeQuery("Match (:Git:Repository {fileName: '.git/modules/sub'})-[:HAS_COMMIT]->(c:Git:Commit {sha: 'defa'})-[r:HAS_PARENT]->(p:Git:Commit {sha: 'abcd'}) return r").iterator();
+        assertThat(iterator.hasNext()).isTrue();
+    }
+
+    @Test
+    void testFailuresOfConcurrentScansAreThrownTogether() throws IOException {
+        GitRepositoryDescriptor brokenDescriptor = store.create(GitRepositoryDescriptor.class);
+        brokenDescriptor.setFileName(".git/modules/broken");
+        GitRepositoryDescriptor missingDescriptor = store.create(GitRepositoryDescriptor.class);
+        missingDescriptor.setFileName(".git/modules/missing");
+        JGitRepository jGitRepository = new JGitRepositoryGitMockBuilder().withCommits(CommitBuilder.builder().sha("1234").build())
+                .withHead(new GitBranch("master", "1234")).build();
+        JGitRepository brokenRepository = new JGitRepositoryGitMockBuilder().build();
+        doThrow(new IllegalStateException("broken")).when(brokenRepository).findBranches();
+        JGitRepository missingRepository = new JGitRepositoryGitMockBuilder().build();
+        doThrow(new IOException("missing")).when(missingRepository).findTags();
+
+        ConcurrentRepositoryScan concurrentScan = new ConcurrentRepositoryScan(3);
+        concurrentScan.add(new GitRepositoryScanner(store, brokenDescriptor, null, brokenRepository, true, new GitScannerConfiguration(), concurrentScan.getStoreLane()));
+        concurrentScan.add(new GitRepositoryScanner(store, gitRepositoryDescriptor, null, jGitRepository, true, new GitScannerConfiguration(), concurrentScan.getStoreLane()));
+        concurrentScan.add(new GitRepositoryScanner(store, missingDescriptor, null, missingRepository, true, new GitScannerConfiguration(), concurrentScan.getStoreLane()));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, concurrentScan::scanAll);
+        assertThat(failure.getMessage()).isEqualTo("broken");
+        assertThat(failure.getSuppressed().length).isEqualTo(1);
+        assertThat(failure.getSuppressed()[0].getMessage()).isEqualTo("missing");
+        // the repository between the failed ones has been scanned completely
+        assertThat(gitRepositoryDescriptor.getHead()).isNotNull();
+    }
 }
@@ -4,12 +4,16 @@ import de.kontext_e.jqassistant.plugin.git.scanner.model.GitBranch;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
 import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
 
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -19,6 +23,7 @@ public class JGitRepositoryGitMockBuilder {
     private List<GitCommit> commits = new LinkedList<>();
     private String currentlyCheckedOutBranch = "master";
     private GitBranch head;
+    private String walkId = "walk";
 
     public JGitRepositoryGitMockBuilder withBranches(GitBranch... branches)  {
         this.branches = new LinkedList<>(List.of(branches));
@@ -40,6 +45,11 @@ public class JGitRepositoryGitMockBuilder {
         return this;
     }
 
+    public JGitRepositoryGitMockBuilder withWalkId(String walkId) {
+        this.walkId = walkId;
+        return this;
+    }
+
     public JGitRepositoryGitMockBuilder withCurrentlyCheckedOutBranch(String currentlyCheckedOutBranch) {
         this.currentlyCheckedOutBranch = currentlyCheckedOutBranch;
         return this;
@@ -56,6 +66,16 @@ public class JGitRepositoryGitMockBuilder {
         when(jGitRepository.findBranches()).thenReturn(branches);
         when(jGitRepository.findTags()).thenReturn(tags);
         when(jGitRepository.findCommits(any())).thenReturn(commits);
+        doAnswer(invocation -> {
+            int batchSize = invocation.getArgument(3);
+            Consumer<List<GitCommit>> batchConsumer = invocation.getArgument(4);
+            for (int i = 0; i < commits.size(); i += batchSize) {
+                batchConsumer.accept(new LinkedList<>(commits.subList(i, Math.min(i + batchSize, commits.size()))));
+            }
+            return null;
+        }).when(jGitRepository).streamCommits(any(), any(), any(), anyInt(), any());
+        when(jGitRepository.getWalkId(any(), any())).thenReturn(walkId);
+        when(jGitRepository.getPaths()).thenReturn(new PathTable());
         when(jGitRepository.getCurrentlyCheckedOutBranch()).thenReturn(currentlyCheckedOutBranch);
         when(jGitRepository.findHead()).thenReturn(head);
 
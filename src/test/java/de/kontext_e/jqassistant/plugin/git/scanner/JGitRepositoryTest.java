@@ -3,18 +3,31 @@ package de.kontext_e.jqassistant.plugin.git.scanner;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
 import de.kontext_e.jqassistant.plugin.git.scanner.model.GitTag;
 import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.RenameDetection;
+import org.eclipse.jgit.api.CommitCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LogCommand;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.junit.Ignore;
-import org.junit.Test;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 /**
@@ -26,7 +39,11 @@ import static org.mockito.Mockito.*;
  */
 // TODO This is not a real Unit test! Make gradle run it in some kind of integration test phase!!!
 public class JGitRepositoryTest {
-    @Ignore("No unit test, depends on state of git repo")
+
+    @TempDir
+    File directory;
+
+    @Disabled("No unit test, depends on state of git repo")
     @Test
     public void testFindCommits () throws IOException {
         JGitRepository jGitRepository = new JGitRepository("../.git");
@@ -35,7 +52,7 @@ public class JGitRepositoryTest {
         assertThat(commits.size()).isGreaterThan(0);
     }
 
-    @Ignore("No unit test, depends on state of git repo")
+    @Disabled("No unit test, depends on state of git repo")
     @Test
     public void testFindTags () throws IOException {
         JGitRepository jGitRepository = new JGitRepository("../.git");
@@ -88,7 +105,7 @@ public class JGitRepositoryTest {
         verify(logCommand).addRange(a1, a2);
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testRangeThreeDots () throws IOException {
         Git git = mock(Git.class);
         Repository repository = mock(Repository.class);
@@ -101,10 +118,10 @@ public class JGitRepositoryTest {
         when(git.log()).thenReturn(logCommand);
 
         JGitRepository gitRepository = new JGitRepository(git);
-        gitRepository.getLogWithOrWithOutRange("HEAD^^...master");
+        assertThrows(IllegalArgumentException.class, () -> gitRepository.getLogWithOrWithOutRange("HEAD^^...master"));
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testRangeSingleDot () throws IOException {
         Git git = mock(Git.class);
         Repository repository = mock(Repository.class);
@@ -117,10 +134,10 @@ public class JGitRepositoryTest {
         when(git.log()).thenReturn(logCommand);
 
         JGitRepository gitRepository = new JGitRepository(git);
-        gitRepository.getLogWithOrWithOutRange("HEAD^^.master");
+        assertThrows(IllegalArgumentException.class, () -> gitRepository.getLogWithOrWithOutRange("HEAD^^.master"));
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testRangeSinceDoesNotExist () throws IOException {
         Git git = mock(Git.class);
         Repository repository = mock(Repository.class);
@@ -134,10 +151,10 @@ public class JGitRepositoryTest {
         when(repository.resolve("NonExistingRev")).thenReturn(null);
 
         JGitRepository gitRepository = new JGitRepository(git);
-        gitRepository.getLogWithOrWithOutRange("NonExistingRev..master");
+        assertThrows(IllegalArgumentException.class, () -> gitRepository.getLogWithOrWithOutRange("NonExistingRev..master"));
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testRangeUntilDoesNotExist () throws IOException {
         Git git = mock(Git.class);
         Repository repository = mock(Repository.class);
@@ -153,7 +170,313 @@ public class JGitRepositoryTest {
         when(repository.resolve("NonExistingRev")).thenReturn(null);
 
         JGitRepository gitRepository = new JGitRepository(git);
-        gitRepository.getLogWithOrWithOutRange("HEAD..NonExistingRev");
+        assertThrows(IllegalArgumentException.class, () -> gitRepository.getLogWithOrWithOutRange("HEAD..NonExistingRev"));
+    }
+
+    @Test
+    public void testFullRenameDetectionUpToMaxChanges() throws Exception {
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setRenameDetectionMaxChanges(6);
+
+        GitCommit commit = findCommit(renamesAndCopies(), configuration, "renames and copies");
+
+        assertThat(commit.getRenameDetection()).isEqualTo(RenameDetection.FULL);
+        assertThat(describe(commit)).containsExactly("C a.txt -> a2.txt", "M b.txt", "R a.txt -> a1.txt", "R c.txt -> d.txt");
+    }
+
+    @Test
+    public void testExactRenameDetectionAboveMaxChanges() throws Exception {
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setRenameDetectionMaxChanges(5);
+        configuration.setRenameDetectionFallback(RenameDetection.EXACT);
+
+        GitCommit commit = findCommit(renamesAndCopies(), configuration, "renames and copies");
+
+        // the identical contents are paired like JGit does, the similar one is not detected
+        assertThat(commit.getRenameDetection()).isEqualTo(RenameDetection.EXACT);
+        assertThat(describe(commit)).containsExactly("A d.txt", "C a.txt -> a2.txt", "D c.txt", "M b.txt", "R a.txt -> a1.txt");
     }
 
+    @Test
+    public void testNoRenameDetectionAboveMaxChanges() throws Exception {
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setRenameDetectionMaxChanges(5);
+        configuration.setRenameDetectionFallback(RenameDetection.NONE);
+
+        GitCommit commit = findCommit(renamesAndCopies(), configuration, "renames and copies");
+
+        assertThat(commit.getRenameDetection()).isEqualTo(RenameDetection.NONE);
+        assertThat(describe(commit)).containsExactly("A a1.txt", "A a2.txt", "A d.txt", "D a.txt", "D c.txt", "M b.txt");
+    }
+
+    @Test
+    public void testExactRenamesOfSeveralIdenticalFiles() throws Exception {
+        Git git = initRepository();
+        write(git, "x1.txt", lines("same", 10));
+        write(git, "x2.txt", lines("same", 10));
+        write(git, "y.txt", lines("other", 10));
+        commit(git, "identical files");
+        delete(git, "x1.txt");
+        delete(git, "x2.txt");
+        delete(git, "y.txt");
+        write(git, "moved/x1.txt", lines("same", 10));
+        write(git, "moved/x2.txt", lines("same", 10));
+        write(git, "moved/x3.txt", lines("same", 10));
+        write(git, "moved/y.txt", lines("other", 10));
+        commit(git, "moved");
+
+        GitScannerConfiguration full = new GitScannerConfiguration();
+        GitScannerConfiguration exact = new GitScannerConfiguration();
+        exact.setRenameDetectionMaxChanges(1);
+        exact.setRenameDetectionFallback(RenameDetection.EXACT);
+
+        List<String> fullChanges = describe(findCommit(git, full, "moved"));
+        List<String> exactChanges = describe(findCommit(git, exact, "moved"));
+
+        assertThat(exactChanges).hasSize(4);
+        assertThat(exactChanges).allMatch(change -> change.startsWith("R ") || change.startsWith("C "));
+        assertThat(exactChanges).anyMatch(change -> change.equals("R y.txt -> moved/y.txt"));
+        // both sources are renamed once, the third file is a copy
+        assertThat(exactChanges.stream().filter(change -> change.startsWith("R ")).count()).isEqualTo(3L);
+        assertThat(exactChanges).containsExactlyElementsOf(fullChanges);
+    }
+
+    @Test
+    public void testExactRenameDetectionAboveRenameLimit() throws Exception {
+        Git git = initRepository();
+        write(git, "a.txt", lines("a", 20));
+        write(git, "c.txt", lines("c", 20));
+        write(git, "e.txt", lines("e", 20));
+        commit(git, "initial");
+        delete(git, "a.txt");
+        write(git, "b.txt", lines("a", 20));
+        delete(git, "c.txt");
+        write(git, "d.txt", lines("c", 20) + "changed\n");
+        delete(git, "e.txt");
+        write(git, "f.txt", lines("e", 20) + "changed\n");
+        commit(git, "moved and changed");
+
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setRenameLimit(1);
+        GitCommit commit = findCommit(git, configuration, "moved and changed");
+        GitCommit fullCommit = findCommit(git, new GitScannerConfiguration(), "moved and changed");
+
+        // two similar files are left after the exact renames, more than JGit compares by content
+        assertThat(commit.getRenameDetection()).isEqualTo(RenameDetection.EXACT);
+        assertThat(describe(commit)).containsExactly("A d.txt", "A f.txt", "D c.txt", "D e.txt", "R a.txt -> b.txt");
+        assertThat(fullCommit.getRenameDetection()).isEqualTo(RenameDetection.FULL);
+        assertThat(describe(fullCommit)).containsExactly("R a.txt -> b.txt", "R c.txt -> d.txt", "R e.txt -> f.txt");
+    }
+
+    @Test
+    public void testRenameDetectionFallsBackAfterTimeout() throws Exception {
+        Git git = initRepository();
+        for (int i = 0; i < 300; i++) {
+            write(git, "old/file" + i + ".txt", lines("file " + i, 100));
+        }
+        write(git, "old/same.txt", lines("same", 100));
+        commit(git, "many files");
+        for (int i = 0; i < 300; i++) {
+            delete(git, "old/file" + i + ".txt");
+            write(git, "new/file" + i + ".txt", lines("file " + i, 100) + "changed\n");
+        }
+        delete(git, "old/same.txt");
+        write(git, "new/same.txt", lines("same", 100));
+        commit(git, "moved and changed");
+
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setRenameDetectionTimeout(1);
+        configuration.setRenameDetectionFallback(RenameDetection.EXACT);
+        GitCommit commit = findCommit(git, configuration, "moved and changed");
+
+        assertThat(commit.getRenameDetection()).isEqualTo(RenameDetection.EXACT);
+        assertThat(describe(commit)).hasSize(601);
+        // the fallback pairs the identical file
+        assertThat(describe(commit).stream().filter(change -> change.startsWith("R ")).collect(Collectors.toList())).containsExactly("R old/same.txt -> new/same.txt");
+
+        GitCommit withoutTimeout = findCommit(git, new GitScannerConfiguration(), "moved and changed");
+        assertThat(withoutTimeout.getRenameDetection()).isEqualTo(RenameDetection.FULL);
+        assertThat(describe(withoutTimeout)).hasSize(301);
+        assertThat(describe(withoutTimeout)).allMatch(change -> change.startsWith("R "));
+    }
+
+    @Test
+    public void testTemporaryCommitGraphIsRemovedAfterTheWalk() throws Exception {
+        File gitDirectory = new RepositoryGenerator().commits(50).mergeEvery(5).branches(2).generate(new File(directory, "graph.git"));
+        File commitGraph = new File(gitDirectory, "objects/info/commit-graph");
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setWriteCommitGraph(true);
+        JGitRepository repository = new JGitRepository(gitDirectory.getAbsolutePath(), configuration);
+
+        List<String> shas = new ArrayList<>();
+        List<Boolean> graphDuringWalk = new ArrayList<>();
+        repository.streamCommits(null, 10, batch -> {
+            graphDuringWalk.add(commitGraph.isFile() && repository.hasCommitGraph());
+            batch.forEach(commit -> shas.add(commit.getSha()));
+        });
+
+        assertThat(graphDuringWalk).isNotEmpty();
+        assertThat(graphDuringWalk).allMatch(Boolean::booleanValue);
+        assertThat(commitGraph.exists()).isFalse();
+        assertThat(repository.hasCommitGraph()).isFalse();
+
+        List<String> withoutGraph = new ArrayList<>();
+        new JGitRepository(gitDirectory.getAbsolutePath()).findCommits(null).forEach(commit -> withoutGraph.add(commit.getSha()));
+        assertThat(shas).containsExactlyElementsOf(withoutGraph);
+    }
+
+    @Test
+    public void testParallelDiffsEqualSerialDiffs() throws Exception {
+        File gitDirectory = new RepositoryGenerator().commits(300).filesPerCommit(4).mergeEvery(7)
+                .renameRatio(0.1).copyRatio(0.05).pathDepth(2).branches(3).generate(new File(directory, "generated.git"));
+
+        List<GitCommit> serial = new ArrayList<>();
+        new JGitRepository(gitDirectory.getAbsolutePath(), new GitScannerConfiguration()).streamCommits(null, 13, serial::addAll);
+        GitScannerConfiguration parallelConfiguration = new GitScannerConfiguration();
+        parallelConfiguration.setDiffThreads(4);
+        List<GitCommit> parallel = new ArrayList<>();
+        new JGitRepository(gitDirectory.getAbsolutePath(), parallelConfiguration).streamCommits(null, 13, parallel::addAll);
+
+        assertThat(parallel).hasSize(serial.size());
+        assertThat(serial).anyMatch(commit -> commit.getParents().size() > 1);
+        assertThat(serial).anyMatch(commit -> describe(commit).stream().anyMatch(change -> change.startsWith("R ")));
+        for (int i = 0; i < serial.size(); i++) {
+            GitCommit serialCommit = serial.get(i);
+            GitCommit parallelCommit = parallel.get(i);
+            assertThat(parallelCommit.getSha()).isEqualTo(serialCommit.getSha());
+            // same changes in the same order, against the same parents
+            assertThat(parallelCommit.getGitChanges()).containsExactlyElementsOf(serialCommit.getGitChanges());
+            assertThat(parallelCommit.getRenameDetection()).isEqualTo(serialCommit.getRenameDetection());
+        }
+    }
+
+    @Test
+    public void testMergeDiffModes() throws Exception {
+        Git git = initRepository();
+        write(git, "a.txt", lines("a", 10));
+        write(git, "b.txt", lines("b", 10));
+        write(git, "c.txt", lines("c", 10));
+        commit(git, "initial");
+        git.checkout().setCreateBranch(true).setName("side").call();
+        write(git, "b.txt", lines("b", 11));
+        write(git, "s.txt", lines("s", 10));
+        RevCommit side = commit(git, "side");
+        git.checkout().setName("main").call();
+        write(git, "a.txt", lines("a", 11));
+        RevCommit main = commit(git, "main");
+        git.merge().include(side).setCommit(false).setFastForward(MergeCommand.FastForwardMode.NO_FF).call();
+        // a change which is in none of the parents
+        write(git, "c.txt", lines("c", 11));
+        commit(git, "merge");
+
+        GitCommit allParents = findMerge(git, MergeDiffMode.ALL_PARENTS);
+        assertThat(describe(allParents, main)).containsExactly("A s.txt", "M b.txt", "M c.txt");
+        assertThat(describe(allParents, side)).containsExactly("M a.txt", "M c.txt");
+
+        GitCommit firstParent = findMerge(git, MergeDiffMode.FIRST_PARENT);
+        assertThat(describe(firstParent, main)).containsExactly("A s.txt", "M b.txt", "M c.txt");
+        assertThat(describe(firstParent, side)).isEmpty();
+
+        // only the paths which differ from all parents, as against the first parent
+        GitCommit combined = findMerge(git, MergeDiffMode.COMBINED);
+        assertThat(describe(combined)).containsExactly("M c.txt");
+        assertThat(describe(combined, main)).containsExactly("M c.txt");
+
+        assertThat(findMerge(git, MergeDiffMode.NONE).getGitChanges()).isEmpty();
+    }
+
+    private static GitCommit findMerge(Git git, MergeDiffMode mergeDiffMode) throws IOException {
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setMergeDiffMode(mergeDiffMode);
+        GitCommit merge = findCommit(git, configuration, "merge");
+        assertThat(merge.getParents()).hasSize(2);
+        return merge;
+    }
+
+    private static List<String> describe(GitCommit commit, RevCommit parent) {
+        GitCommit changesAgainstParent = new GitCommit(commit.getSha());
+        for (GitChange change : commit.getGitChanges()) {
+            if (parent.getName().equals(change.getParentSha())) {
+                changesAgainstParent.getGitChanges().add(change);
+            }
+        }
+        return describe(changesAgainstParent);
+    }
+
+    /*
+     * A commit with six diff entries: a file deleted and added twice with the same content, a modified file and a
+     * file moved with a small change.
+     */
+    private Git renamesAndCopies() throws Exception {
+        Git git = initRepository();
+        write(git, "a.txt", lines("a", 20));
+        write(git, "b.txt", lines("b", 20));
+        write(git, "c.txt", lines("c", 20));
+        commit(git, "initial");
+        delete(git, "a.txt");
+        write(git, "a1.txt", lines("a", 20));
+        write(git, "a2.txt", lines("a", 20));
+        write(git, "b.txt", lines("b", 21));
+        delete(git, "c.txt");
+        write(git, "d.txt", lines("c", 20) + "changed\n");
+        commit(git, "renames and copies");
+        return git;
+    }
+
+    private Git initRepository() throws GitAPIException {
+        return Git.init().setDirectory(directory).setInitialBranch("main").call();
+    }
+
+    private static String lines(String prefix, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append(prefix).append(" line ").append(i).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private static void write(Git git, String path, String content) throws IOException {
+        File file = new File(git.getRepository().getWorkTree(), path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(file.toPath(), content);
+    }
+
+    private static void delete(Git git, String path) throws IOException {
+        Files.delete(new File(git.getRepository().getWorkTree(), path).toPath());
+    }
+
+    private static RevCommit commit(Git git, String message) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        CommitCommand commit = git.commit().setMessage(message).setSign(false)
+                .setAuthor("Author", "author@example.com").setCommitter("Committer", "committer@example.com");
+        return commit.call();
+    }
+
+    private static List<GitCommit> findCommits(Git git, GitScannerConfiguration configuration) throws IOException {
+        return new JGitRepository(git.getRepository().getDirectory().getAbsolutePath(), configuration).findCommits(null);
+    }
+
+    private static GitCommit findCommit(Git git, GitScannerConfiguration configuration, String message) throws IOException {
+        return findCommits(git, configuration).stream()
+                .filter(commit -> commit.getShortMessage().equals(message))
+                .findFirst().orElseThrow();
+    }
+
+    /*
+     * The changes in a stable order, renames and copies with their source.
+     */
+    private static List<String> describe(GitCommit commit) {
+        List<String> changes = new ArrayList<>();
+        for (GitChange change : commit.getGitChanges()) {
+            DiffEntry.ChangeType changeType = change.getChangeType();
+            if (changeType == DiffEntry.ChangeType.RENAME || changeType == DiffEntry.ChangeType.COPY) {
+                changes.add(change.getModificationKind() + " " + change.getOldPath() + " -> " + change.getNewPath());
+            } else {
+                changes.add(change.getModificationKind() + " " + change.getRelativePath());
+            }
+        }
+        Collections.sort(changes);
+        return changes;
+    }
 }
@@ -0,0 +1,153 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import com.buschmais.jqassistant.core.test.plugin.AbstractPluginIT;
+import com.buschmais.xo.api.Query.Result;
+import com.buschmais.xo.api.Query.Result.CompositeRowObject;
+import de.kontext_e.jqassistant.plugin.git.store.descriptor.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository.*;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The lookups of {@link de.kontext_e.jqassistant.plugin.git.scanner.repositories.JQAssistantGitRepository} must be
+ * backed by schema indexes. The query each lookup has issued is executed once more with an index hint, which Neo4j
+ * rejects if there is no index the planner could use for an index seek.
+ */
+class JQAssistantGitRepositoryTest extends AbstractPluginIT {
+
+    private static final int NODES_PER_LABEL = 500;
+
+    @BeforeEach
+    public void populateStore() {
+        store.beginTransaction();
+        for (int i = 0; i < NODES_PER_LABEL; i++) {
+            GitRepositoryDescriptor repository = store.create(GitRepositoryDescriptor.class);
+            repository.setFileName("/repository/" + i + "/.git");
+            GitCommitDescriptor commit = store.create(GitCommitDescriptor.class);
+            commit.setSha("sha" + i);
+            GitAuthorDescriptor author = store.create(GitAuthorDescriptor.class);
+            author.setIdentString("Author" + i + " <author" + i + "@e-mail.com>");
+            GitCommitterDescriptor committer = store.create(GitCommitterDescriptor.class);
+            committer.setIdentString("Committer" + i + " <committer" + i + "@e-mail.com>");
+            GitFileDescriptor file = store.create(GitFileDescriptor.class);
+            file.setRelativePath("src/File" + i + ".java");
+            GitBranchDescriptor branch = store.create(GitBranchDescriptor.class);
+            branch.setName("heads/branch" + i);
+            branch.setHead(commit);
+            repository.getBranches().add(branch);
+            repository.getFiles().add(file);
+            repository.getAuthors().add(author);
+            repository.getCommitters().add(committer);
+        }
+        store.commitTransaction();
+        store.beginTransaction();
+    }
+
+    @AfterEach
+    public void clearStore() {
+        store.commitTransaction();
+        store.beginTransaction();
+        store.executeQuery("Match (n) DETACH DELETE n").close();
+        store.commitTransaction();
+    }
+
+    @Test
+    void testRepositoryLookupUsesIndex() {
+        GitRepositoryDescriptor repository = assertIndexSeek(store -> getExistingRepositoryDescriptor(store, "/repository/42/.git"), "c:Repository(fileName)");
+
+        assertThat(repository.getFileName()).isEqualTo("/repository/42/.git");
+    }
+
+    @Test
+    void testCommitLookupUsesIndex() {
+        GitCommitDescriptor commit = assertIndexSeek(store -> getCommitDescriptorFromDB(store, "sha42"), "c:Commit(sha)");
+        Map<String, GitCommitDescriptor> commits = assertIndexSeek(store -> getCommitDescriptorsFromDB(store, List.of("sha42", "sha43")), "c:Commit(sha)");
+
+        assertThat(commit.getSha()).isEqualTo("sha42");
+        assertThat(commits.keySet()).isEqualTo(Set.of("sha42", "sha43"));
+    }
+
+    @Test
+    void testAuthorLookupUsesIndex() {
+        String identString = "Author42 <author42@e-mail.com>";
+        GitAuthorDescriptor author = assertIndexSeek(store -> getAuthorDescriptorFromDB(store, identString), "a:Author(identString)");
+        Map<String, GitAuthorDescriptor> authors = assertIndexSeek(store -> getAuthorDescriptorsFromDB(store, List.of(identString)), "a:Author(identString)");
+        Map<String, GitAuthorDescriptor> ofRepository = assertIndexSeek(store -> getRepositoryAuthorDescriptorsFromDB(store, repository(42), List.of(identString)), "r:Repository(fileName)");
+
+        assertThat(author.getIdentString()).isEqualTo(identString);
+        assertThat(authors.keySet()).isEqualTo(Set.of(identString));
+        assertThat(ofRepository.keySet()).isEqualTo(Set.of(identString));
+    }
+
+    @Test
+    void testCommitterLookupUsesIndex() {
+        String identString = "Committer42 <committer42@e-mail.com>";
+        GitCommitterDescriptor committer = assertIndexSeek(store -> getCommitterDescriptorFromDB(store, identString), "c:Committer(identString)");
+        Map<String, GitCommitterDescriptor> committers = assertIndexSeek(store -> getCommitterDescriptorsFromDB(store, List.of(identString)), "c:Committer(identString)");
+        Map<String, GitCommitterDescriptor> ofRepository = assertIndexSeek(store -> getRepositoryCommitterDescriptorsFromDB(store, repository(42), List.of(identString)), "r:Repository(fileName)");
+
+        assertThat(committer.getIdentString()).isEqualTo(identString);
+        assertThat(committers.keySet()).isEqualTo(Set.of(identString));
+        assertThat(ofRepository.keySet()).isEqualTo(Set.of(identString));
+    }
+
+    @Test
+    void testFileLookupUsesIndex() {
+        GitFileDescriptor file = assertIndexSeek(store -> getRepositoryFileDescriptorFromDB(store, repository(42), "src/File42.java"), "f:File(relativePath)");
+        Map<String, GitFileDescriptor> files = assertIndexSeek(store -> getRepositoryFileDescriptorsFromDB(store, repository(42), List.of("src/File42.java")), "f:File(relativePath)");
+
+        assertThat(file.getRelativePath()).isEqualTo("src/File42.java");
+        assertThat(files.keySet()).isEqualTo(Set.of("src/File42.java"));
+    }
+
+    @Test
+    void testBranchLookupUsesIndex() {
+        String sha = assertIndexSeek(store -> findShaOfLatestScannedCommitOfBranch(store, "heads/branch42"), "b:Branch(name)");
+
+        assertThat(sha).isEqualTo("sha42");
+    }
+
+    @Test
+    void testBranchImportUsesIndex() {
+        Map<String, GitBranchDescriptor> branches = assertIndexSeek(store -> importExistingBranchesFromStore(store, repository(42)), "repo:Repository(fileName)");
+
+        assertThat(branches.keySet()).isEqualTo(Set.of("heads/branch42"));
+    }
+
+    /*
+     * Runs the lookup against a spied store and executes the query it has issued once more, with an index hint
+     * inserted before its WHERE clause.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T assertIndexSeek(Function<Store, T> lookup, String index) {
+        Store spiedStore = spy(store);
+        T result = lookup.apply(spiedStore);
+        assertThat(result).isNotNull();
+
+        ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Map<String, Object>> parameters = ArgumentCaptor.forClass(Map.class);
+        verify(spiedStore).executeQuery(query.capture(), parameters.capture());
+        String hinted = query.getValue().replaceFirst("(?i) where ", " USING INDEX " + index + " WHERE ");
+        assertThat(hinted).isNotEqualTo(query.getValue());
+        try (Result<CompositeRowObject> rows = store.executeQuery(hinted, parameters.getValue())) {
+            assertThat(rows.iterator().hasNext()).isTrue();
+        }
+        return result;
+    }
+
+    private GitRepositoryDescriptor repository(int i) {
+        return getExistingRepositoryDescriptor(store, "/repository/" + i + "/.git");
+    }
+}
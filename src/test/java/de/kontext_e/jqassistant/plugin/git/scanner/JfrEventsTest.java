@@ -0,0 +1,57 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.scanner.api.DefaultScope;
+import com.buschmais.jqassistant.core.test.plugin.AbstractPluginIT;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records a scan with all events of the plugin enabled and without thresholds.
+ */
+class JfrEventsTest extends AbstractPluginIT {
+
+    private static final List<String> EVENTS = List.of(
+            "de.kontext_e.jqassistant.git.RepositoryScan",
+            "de.kontext_e.jqassistant.git.ScanPhase",
+            "de.kontext_e.jqassistant.git.CommitDiff",
+            "de.kontext_e.jqassistant.git.StoreLookup");
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testScanRecordsAllEventTypes() throws Exception {
+        File workTree = new File(directory, "repository");
+        new RepositoryGenerator().commits(50).mergeEvery(5).renameRatio(0.1).branches(2).tags(2)
+                .generate(new File(workTree, ".git"));
+        Path dump = new File(directory, "scan.jfr").toPath();
+
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            getScanner().scan(workTree, workTree.getAbsolutePath(), DefaultScope.NONE);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Set<String> recorded = new TreeSet<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            recorded.add(event.getEventType().getName());
+        }
+        assertThat(recorded).containsAll(EVENTS);
+    }
+}
@@ -0,0 +1,77 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitCommit;
+import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scans a generated history with include and exclude globs for the changed paths.
+ */
+class PathFilterTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testWithoutFilterAllPathsAreScanned() throws IOException {
+        List<String> paths = scanChangedPaths(Collections.emptyList(), Collections.emptyList());
+
+        assertThat(paths).isNotEmpty();
+        assertThat(paths).anyMatch(path -> path.startsWith("dir-001/"));
+        assertThat(paths).anyMatch(path -> !path.startsWith("dir-001/"));
+    }
+
+    @Test
+    void testIncludedDirectory() throws IOException {
+        List<String> paths = scanChangedPaths(Collections.singletonList("dir-001/**"), Collections.emptyList());
+
+        assertThat(paths).isNotEmpty();
+        assertThat(paths).allMatch(path -> path.startsWith("dir-001/"));
+    }
+
+    @Test
+    void testExcludedNamesInAnyDirectory() throws IOException {
+        List<String> paths = scanChangedPaths(Collections.emptyList(), Arrays.asList("file-000?.txt", "dir-00*"));
+
+        assertThat(paths).isNotEmpty();
+        assertThat(paths).noneMatch(path -> path.startsWith("dir-00"));
+        assertThat(paths).noneMatch(path -> path.matches(".*/file-000.\\.txt"));
+    }
+
+    @Test
+    void testExcludeWinsOverInclude() throws IOException {
+        List<String> paths = scanChangedPaths(Collections.singletonList("*.txt"), Collections.singletonList("dir-001"));
+
+        assertThat(paths).isNotEmpty();
+        assertThat(paths).noneMatch(path -> path.startsWith("dir-001/"));
+    }
+
+    private List<String> scanChangedPaths(List<String> includePaths, List<String> excludePaths) throws IOException {
+        File gitDir = new RepositoryGenerator().commits(200).directories(20).filesPerDirectory(20).mergeEvery(20)
+                .generate(new File(directory, ".git"));
+        GitScannerConfiguration configuration = new GitScannerConfiguration();
+        configuration.setIncludePaths(includePaths);
+        configuration.setExcludePaths(excludePaths);
+
+        List<String> paths = new ArrayList<>();
+        new JGitRepository(gitDir.getAbsolutePath(), configuration).streamCommits(null, 50, commits -> {
+            for (GitCommit commit : commits) {
+                for (GitChange change : commit.getGitChanges()) {
+                    paths.add(change.getRelativePath());
+                }
+            }
+        });
+        return paths;
+    }
+}
@@ -0,0 +1,81 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.model.GitChange;
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.PathTable;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathTableTest {
+
+    @Test
+    void testEqualPathsShareIdAndString() {
+        PathTable paths = new PathTable();
+
+        int id = paths.intern(new String("src/Main.java"));
+        int other = paths.intern("src/Other.java");
+
+        assertThat(id).isEqualTo(0);
+        assertThat(other).isEqualTo(1);
+        assertThat(paths.intern(new String("src/Main.java"))).isEqualTo(id);
+        assertThat(paths.path(id)).isEqualTo("src/Main.java");
+        assertThat(paths.path(id)).isSameAs(paths.path(paths.intern(new String("src/Main.java"))));
+        assertThat(paths.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testPathsWithEqualHashCodes() {
+        PathTable paths = new PathTable();
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        int aa = paths.intern("Aa");
+        int bb = paths.intern("BB");
+
+        assertThat(bb).isNotEqualTo(aa);
+        assertThat(paths.intern("Aa")).isEqualTo(aa);
+        assertThat(paths.intern("BB")).isEqualTo(bb);
+    }
+
+    @Test
+    void testIdsStayStableWhileGrowing() {
+        PathTable paths = new PathTable();
+        // far beyond the initial capacity of the paths and the slots
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(paths.intern("dir-" + (i % 100) + "/file-" + i + ".txt")).isEqualTo(i);
+        }
+
+        assertThat(paths.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            String path = "dir-" + (i % 100) + "/file-" + i + ".txt";
+            assertThat(paths.intern(path)).isEqualTo(i);
+            assertThat(paths.path(i)).isEqualTo(path);
+        }
+    }
+
+    @Test
+    void testNoIdIsNeverHandedOut() {
+        PathTable paths = new PathTable();
+
+        assertThat(paths.intern("a")).isNotEqualTo(PathTable.NO_ID);
+        assertThrows(IllegalArgumentException.class, () -> paths.path(PathTable.NO_ID));
+        assertThrows(IllegalArgumentException.class, () -> paths.path(paths.size()));
+    }
+
+    /*
+     * Files of changes with path ids are looked up by id, all others by path.
+     */
+    @Test
+    void testChangesCarryTheIdsOfTheirPaths() {
+        PathTable paths = new PathTable();
+
+        GitChange interned = new GitChange(DiffEntry.ChangeType.RENAME, paths, "old.txt", "new.txt");
+        GitChange notInterned = new GitChange("R", "old.txt", "new.txt");
+
+        assertThat(interned.getOldPathId()).isEqualTo(paths.intern("old.txt"));
+        assertThat(interned.getRelativePathId()).isEqualTo(paths.intern("new.txt"));
+        assertThat(notInterned.getOldPathId()).isEqualTo(PathTable.NO_ID);
+        assertThat(notInterned.getRelativePathId()).isEqualTo(PathTable.NO_ID);
+    }
+}
@@ -0,0 +1,373 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates bare Git repositories with a synthetic history for benchmarks.
+ *
+ * The same settings always generate the same objects (and SHAs): contents, authors and commit times only depend on
+ * the seed. All objects are written into packs, so even large histories do not end up as millions of loose files.
+ * Settings at their defaults do not consume random numbers, so adding one of them does not change the history
+ * generated without it.
+ */
+public class RepositoryGenerator {
+
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+    private static final int COMMITS_PER_PACK = 100_000;
+    private static final Comparator<String> DEEPEST_FIRST =
+            Comparator.comparingInt(RepositoryGenerator::depth).reversed().thenComparing(Comparator.naturalOrder());
+
+    private int commits = 1_000;
+    private int filesPerCommit = 3;
+    private int directories = 50;
+    private int filesPerDirectory = 50;
+    private int fileSize = 0;
+    private int mergeEvery = 0;
+    private int tagEvery = 0;
+    private int tags = 0;
+    private int branches = 0;
+    private double renameRatio = 0;
+    private double copyRatio = 0;
+    private int pathDepth = 1;
+    private long seed = 42;
+
+    // directory -> file name -> blob
+    private final Map<String, TreeMap<String, ObjectId>> files = new TreeMap<>();
+    // directory ("" for the root) -> subdirectory name -> tree
+    private final Map<String, TreeMap<String, ObjectId>> subtrees = new TreeMap<>();
+    private final Set<String> changedDirectories = new HashSet<>();
+    private Random random;
+    private int commitNumber;
+    private int movedFiles;
+    private ObjectId rootTree;
+
+    public RepositoryGenerator commits(int commits) {
+        this.commits = commits;
+        return this;
+    }
+
+    public RepositoryGenerator filesPerCommit(int filesPerCommit) {
+        this.filesPerCommit = filesPerCommit;
+        return this;
+    }
+
+    public RepositoryGenerator directories(int directories) {
+        this.directories = directories;
+        return this;
+    }
+
+    public RepositoryGenerator filesPerDirectory(int filesPerDirectory) {
+        this.filesPerDirectory = filesPerDirectory;
+        return this;
+    }
+
+    /**
+     * @param fileSize approximate size of the files in bytes, the revisions of a file only differ in a few lines
+     *                 so packs can store them as deltas, 0 generates files with two lines
+     */
+    public RepositoryGenerator fileSize(int fileSize) {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    /**
+     * @param mergeEvery every that many commits a side branch commit is merged into main, 0 generates a linear history
+     */
+    public RepositoryGenerator mergeEvery(int mergeEvery) {
+        this.mergeEvery = mergeEvery;
+        return this;
+    }
+
+    /**
+     * @param tagEvery every that many commits a lightweight tag is created, 0 generates no tags
+     */
+    public RepositoryGenerator tagEvery(int tagEvery) {
+        this.tagEvery = tagEvery;
+        return this;
+    }
+
+    /**
+     * @param tags number of lightweight tags, spread evenly over the history of main, instead of one every
+     *             {@link #tagEvery(int)} commits
+     */
+    public RepositoryGenerator tags(int tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    /**
+     * @param branches number of branches besides main, they point at commits spread evenly over the history of main
+     */
+    public RepositoryGenerator branches(int branches) {
+        this.branches = branches;
+        return this;
+    }
+
+    /**
+     * @param renameRatio share of the file changes which move an unchanged file into another directory
+     */
+    public RepositoryGenerator renameRatio(double renameRatio) {
+        this.renameRatio = renameRatio;
+        return this;
+    }
+
+    /**
+     * @param copyRatio share of the file changes which move a file and add a copy of it, JGit only detects copies
+     *                  of files which are renamed or deleted in the same commit
+     */
+    public RepositoryGenerator copyRatio(double copyRatio) {
+        this.copyRatio = copyRatio;
+        return this;
+    }
+
+    /**
+     * @param pathDepth number of directory levels above the files, 1 puts all directories into the root
+     */
+    public RepositoryGenerator pathDepth(int pathDepth) {
+        this.pathDepth = pathDepth;
+        return this;
+    }
+
+    public RepositoryGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates a bare repository with the branch <code>main</code> (checked out as HEAD) in the given directory. The
+     * other branches are named <code>branch-1</code>, <code>branch-2</code>, ..., the tags <code>v1</code>,
+     * <code>v2</code>, ...
+     *
+     * @return the git directory
+     */
+    public File generate(File gitDir) throws IOException {
+        random = new Random(seed);
+        commitNumber = 0;
+        movedFiles = 0;
+        rootTree = null;
+        files.clear();
+        subtrees.clear();
+        changedDirectories.clear();
+        int tagInterval = tags > 0 ? Math.max(1, commits / tags) : tagEvery;
+        int branchInterval = branches > 0 ? Math.max(1, commits / branches) : 0;
+
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).setBare().build()) {
+            repository.create(true);
+
+            ObjectId head = null;
+            int taggedAt = 0;
+            int branchedAt = 0;
+            int flushedAt = 0;
+            List<ObjectId> taggedCommits = new ArrayList<>();
+            List<ObjectId> branchHeads = new ArrayList<>();
+            ObjectInserter inserter = newInserter(repository);
+            try {
+                while (commitNumber < commits) {
+                    if (mergeEvery > 0 && head != null && commitNumber % mergeEvery == 0 && commitNumber + 3 <= commits) {
+                        ObjectId side = commit(inserter, head);
+                        ObjectId main = commit(inserter, head);
+                        head = commit(inserter, main, side);
+                    } else {
+                        head = head == null ? commit(inserter) : commit(inserter, head);
+                    }
+                    if (tagInterval > 0 && commitNumber - taggedAt >= tagInterval && (tags == 0 || taggedCommits.size() < tags)) {
+                        taggedCommits.add(head);
+                        taggedAt = commitNumber;
+                    }
+                    if (branchInterval > 0 && commitNumber - branchedAt >= branchInterval && branchHeads.size() < branches) {
+                        branchHeads.add(head);
+                        branchedAt = commitNumber;
+                    }
+                    if (commitNumber - flushedAt >= COMMITS_PER_PACK) {
+                        flushedAt = commitNumber;
+                        inserter.flush();
+                        inserter.close();
+                        inserter = newInserter(repository);
+                    }
+                }
+                inserter.flush();
+            } finally {
+                inserter.close();
+            }
+
+            // merges take three commits at once, so the last intervals may have been skipped
+            while (taggedCommits.size() < tags) taggedCommits.add(head);
+            while (branchHeads.size() < branches) branchHeads.add(head);
+
+            updateRef(repository, "refs/heads/main", head);
+            for (int i = 0; i < branchHeads.size(); i++) {
+                updateRef(repository, Constants.R_HEADS + "branch-" + (i + 1), branchHeads.get(i));
+            }
+            for (int i = 0; i < taggedCommits.size(); i++) {
+                updateRef(repository, Constants.R_TAGS + "v" + (i + 1), taggedCommits.get(i));
+            }
+            RefUpdate headUpdate = repository.updateRef(Constants.HEAD);
+            headUpdate.link("refs/heads/main");
+        }
+        return gitDir;
+    }
+
+    private static ObjectInserter newInserter(Repository repository) {
+        ObjectDatabase objectDatabase = repository.getObjectDatabase();
+        if (objectDatabase instanceof ObjectDirectory) {
+            return ((ObjectDirectory) objectDatabase).newPackInserter();
+        }
+        return repository.newObjectInserter();
+    }
+
+    private ObjectId commit(ObjectInserter inserter, ObjectId... parents) throws IOException {
+        commitNumber++;
+        for (int i = 0; i < filesPerCommit; i++) {
+            if (renameRatio > 0 && random.nextDouble() < renameRatio && move(false)) continue;
+            if (copyRatio > 0 && random.nextDouble() < copyRatio && move(true)) continue;
+
+            String directory = directory(random.nextInt(directories));
+            String file = String.format("file-%04d.txt", random.nextInt(filesPerDirectory));
+            byte[] content = content(directory + "/" + file);
+            files.computeIfAbsent(directory, key -> new TreeMap<>()).put(file, inserter.insert(Constants.OBJ_BLOB, content));
+            changedDirectories.add(directory);
+        }
+
+        int author = random.nextInt(20);
+        PersonIdent ident = new PersonIdent("Author " + author, "author" + author + "@example.com",
+                START.plusSeconds(60L * commitNumber), ZoneOffset.UTC);
+        CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(writeTree(inserter));
+        commit.setParentIds(parents);
+        commit.setAuthor(ident);
+        commit.setCommitter(ident);
+        commit.setMessage("Commit " + commitNumber + "\n\nGenerated with seed " + seed + "\n");
+        return inserter.insert(commit);
+    }
+
+    /*
+     * Moves a random file into a random directory without changing it, with a copy of it in another random directory.
+     * Only files of directories with other files are moved, so no directory gets empty.
+     */
+    private boolean move(boolean withCopy) {
+        if (files.isEmpty()) return false;
+
+        List<String> candidates = new ArrayList<>(files.keySet());
+        String source = candidates.get(random.nextInt(candidates.size()));
+        TreeMap<String, ObjectId> sourceFiles = files.get(source);
+        if (sourceFiles.size() < 2) return false;
+
+        String file = new ArrayList<>(sourceFiles.keySet()).get(random.nextInt(sourceFiles.size()));
+        ObjectId blob = sourceFiles.remove(file);
+        changedDirectories.add(source);
+        String target = directory(random.nextInt(directories));
+        files.computeIfAbsent(target, key -> new TreeMap<>()).put(String.format("moved-%06d.txt", ++movedFiles), blob);
+        changedDirectories.add(target);
+        if (withCopy) {
+            String copyTarget = directory(random.nextInt(directories));
+            files.computeIfAbsent(copyTarget, key -> new TreeMap<>()).put(String.format("copy-%06d.txt", movedFiles), blob);
+            changedDirectories.add(copyTarget);
+        }
+        return true;
+    }
+
+    /*
+     * The directories below the root only depend on the index, so every directory always has the same parents.
+     */
+    private String directory(int index) {
+        StringBuilder directory = new StringBuilder();
+        for (int level = 1; level < pathDepth; level++) {
+            directory.append("level").append(level).append('-').append(index % (level + 1)).append('/');
+        }
+        return directory.append(String.format("dir-%03d", index)).toString();
+    }
+
+    private byte[] content(String path) {
+        String revision = "revision " + commitNumber + "\n";
+        if (fileSize <= 0) return (path + "\n" + revision).getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder content = new StringBuilder(fileSize + revision.length());
+        int revisionLine = random.nextInt(Math.max(1, fileSize / 64));
+        for (int line = 0; content.length() < fileSize; line++) {
+            content.append(line == revisionLine ? revision : path + " line " + line + "\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Writes the trees of the changed directories and of their parents up to the root, the trees of the other
+     * directories stay the same.
+     */
+    private ObjectId writeTree(ObjectInserter inserter) throws IOException {
+        TreeSet<String> changedParents = new TreeSet<>(DEEPEST_FIRST);
+        for (String directory : changedDirectories) {
+            TreeFormatter tree = new TreeFormatter();
+            files.get(directory).forEach((name, blob) -> tree.append(name, FileMode.REGULAR_FILE, blob));
+            changedParents.add(putSubtree(directory, inserter.insert(tree)));
+        }
+        changedDirectories.clear();
+
+        while (!changedParents.isEmpty()) {
+            String directory = changedParents.pollFirst();
+            TreeFormatter tree = new TreeFormatter();
+            subtrees.get(directory).forEach((name, subtree) -> tree.append(name, FileMode.TREE, subtree));
+            ObjectId treeId = inserter.insert(tree);
+            if (directory.isEmpty()) {
+                rootTree = treeId;
+            } else {
+                changedParents.add(putSubtree(directory, treeId));
+            }
+        }
+        if (rootTree == null) {
+            rootTree = inserter.insert(new TreeFormatter());
+        }
+        return rootTree;
+    }
+
+    /*
+     * @return the parent directory
+     */
+    private String putSubtree(String directory, ObjectId tree) {
+        int slash = directory.lastIndexOf('/');
+        String parent = slash < 0 ? "" : directory.substring(0, slash);
+        subtrees.computeIfAbsent(parent, key -> new TreeMap<>()).put(directory.substring(slash + 1), tree);
+        return parent;
+    }
+
+    private static int depth(String directory) {
+        if (directory.isEmpty()) return 0;
+
+        int depth = 1;
+        for (int i = 0; i < directory.length(); i++) {
+            if (directory.charAt(i) == '/') depth++;
+        }
+        return depth;
+    }
+
+    private static void updateRef(Repository repository, String name, ObjectId id) throws IOException {
+        RefUpdate refUpdate = repository.updateRef(name);
+        refUpdate.setNewObjectId(id);
+        refUpdate.forceUpdate();
+    }
+}
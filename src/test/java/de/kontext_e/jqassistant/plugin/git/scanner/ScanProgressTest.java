@@ -0,0 +1,71 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.repositories.JGitRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estimates the total of a generated history up front and reports the progress against it.
+ */
+class ScanProgressTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testCountedCommitsMatchWalkedCommits() throws IOException {
+        File gitDirectory = new File(directory, ".git");
+        new RepositoryGenerator().commits(200).mergeEvery(10).branches(3).tags(2).generate(gitDirectory);
+
+        long counted = new JGitRepository(gitDirectory.getAbsolutePath()).countCommits(null, Collections.emptySet());
+        int walked = new JGitRepository(gitDirectory.getAbsolutePath()).findCommits(null).size();
+
+        assertThat(counted).isEqualTo(walked);
+    }
+
+    @Test
+    void testProgressWithRateAndEta() {
+        AtomicLong now = new AtomicLong();
+        ScanProgress progress = new ScanProgress("repository", Duration.ofSeconds(60), now::get);
+        progress.start(1000, 100);
+
+        now.set(59 * SECOND);
+        progress.walked(400);
+        progress.stored(300);
+
+        // 300 commits in 60 s, the remaining 600 take 120 s
+        assertThat(progress.describe(60 * SECOND))
+                .isEqualTo("Scanning Git repository 'repository': #400 of ~#1000 commits stored (40.0%), #500 walked, 5 commits/s, ETA 2m 00s");
+    }
+
+    @Test
+    void testProgressWithoutEstimatedTotal() {
+        AtomicLong now = new AtomicLong();
+        ScanProgress progress = new ScanProgress("repository", Duration.ofSeconds(60), now::get);
+        progress.start(-1, 0);
+
+        now.set(59 * SECOND);
+        progress.walked(400);
+        progress.stored(300);
+
+        assertThat(progress.describe(60 * SECOND))
+                .isEqualTo("Scanning Git repository 'repository': #300 commits stored, #400 walked, 5 commits/s");
+    }
+
+    @Test
+    void testWithoutIntervalNothingIsReported() {
+        ScanProgress progress = new ScanProgress("repository", Duration.ZERO);
+
+        assertThat(progress.isEnabled()).isFalse();
+    }
+}
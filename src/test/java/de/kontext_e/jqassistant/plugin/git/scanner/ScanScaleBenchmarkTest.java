@@ -0,0 +1,120 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.scanner.api.DefaultScope;
+import com.buschmais.jqassistant.core.test.plugin.AbstractPluginIT;
+import com.buschmais.xo.api.Query.Result;
+import com.buschmais.xo.api.Query.Result.CompositeRowObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scans generated repositories of 10k, 100k and 1M commits end to end, from the directory containing the
+ * <code>.git</code> directory through the scanner plugin into the store, and reports wall-clock time, peak heap and
+ * the number of created nodes and relationships. The histories have merges, renames and copies, three levels of
+ * directories and some branches and tags.
+ *
+ * The generated histories are deterministic, so the scan has to create exactly the same Git nodes and relationships
+ * every time. Wall-clock time and peak heap have to stay within the recorded budget of each size times
+ * {@link #TOLERANCE}. Run with <code>gradle benchmarkTest --tests '*ScanScaleBenchmarkTest*'</code>, a
+ * single size with e.g. <code>--tests '*ScanScaleBenchmarkTest.testScan100kCommits'</code>.
+ */
+@Tag("benchmark")
+class ScanScaleBenchmarkTest extends AbstractPluginIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanScaleBenchmarkTest.class);
+
+    private static final long MB = 1024 * 1024;
+
+    private static final String NODES = "MATCH (n:Git) RETURN count(n) AS count";
+    private static final String RELATIONSHIPS = "MATCH (:Git)-[r]->(:Git) RETURN count(r) AS count";
+
+    /*
+     * Headroom above the recorded budgets for slower or shared machines, a scan which needs more is a regression.
+     */
+    private static final double TOLERANCE = 1.5;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testScan10kCommits() throws IOException {
+        scanAndReport(10_000, 66_488, 182_901, Duration.ofMinutes(2), 1024);
+    }
+
+    @Test
+    void testScan100kCommits() throws IOException {
+        scanAndReport(100_000, 534_731, 1_700_710, Duration.ofMinutes(20), 2048);
+    }
+
+    @Test
+    void testScan1MCommits() throws IOException {
+        scanAndReport(1_000_000, NODES_1M, RELATIONSHIPS_1M, Duration.ofHours(4), 4096);
+    }
+
+    private void scanAndReport(int commits, long expectedNodes, long expectedRelationships, Duration wallClockBudget,
+                               long peakHeapBudgetMb) throws IOException {
+        File workTree = new File(directory, "repository-" + commits);
+        new RepositoryGenerator().commits(commits).filesPerCommit(3).directories(200).filesPerDirectory(100).pathDepth(3)
+                .mergeEvery(10).renameRatio(0.05).copyRatio(0.01).branches(50).tags(50)
+                .generate(new File(workTree, ".git"));
+
+        long nodesBefore = count(NODES);
+        long relationshipsBefore = count(RELATIONSHIPS);
+        resetPeakHeap();
+        long start = System.nanoTime();
+        getScanner().scan(workTree, workTree.getAbsolutePath(), DefaultScope.NONE);
+        Duration wallClock = Duration.ofNanos(System.nanoTime() - start);
+        long peakHeap = peakHeap();
+        long nodes = count(NODES) - nodesBefore;
+        long relationships = count(RELATIONSHIPS) - relationshipsBefore;
+
+        LOGGER.info("Scanning {} commits: {} s, peak heap {} MB, {} nodes ({} per commit), {} relationships", commits,
+                wallClock.toSeconds(), peakHeap / MB, nodes, nodes / commits, relationships);
+        assertThat(nodes).isEqualTo(expectedNodes);
+        assertThat(relationships).isEqualTo(expectedRelationships);
+        assertThat(wallClock).isLessThanOrEqualTo(Duration.ofMillis((long) (wallClockBudget.toMillis() * TOLERANCE)));
+        assertThat(peakHeap / MB).isLessThanOrEqualTo((long) (peakHeapBudgetMb * TOLERANCE));
+    }
+
+    /*
+     * Only the Git graph, the file and directory nodes of the scanned work tree depend on the scanner plugins.
+     */
+    private long count(String query) {
+        store.beginTransaction();
+        try (Result<CompositeRowObject> result = store.executeQuery(query)) {
+            return result.getSingleResult().get("count", Long.class);
+        } finally {
+            store.commitTransaction();
+        }
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /*
+     * The sum of the peaks of the heap pools, an upper bound of the used heap: the pools do not peak at the same time.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,73 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import com.buschmais.jqassistant.core.scanner.api.DefaultScope;
+import com.buschmais.jqassistant.core.test.plugin.AbstractPluginIT;
+import com.buschmais.xo.api.Query.Result;
+import com.buschmais.xo.api.Query.Result.CompositeRowObject;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scans a superproject with a submodule once serially and once concurrently, the number of repository threads must
+ * not change the graph.
+ */
+class SubmoduleScanTest extends AbstractPluginIT {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void testSerialAndConcurrentScansCreateEqualSubmoduleDescriptors() throws Exception {
+        // every repository is only scanned once per JVM, so both scans get their own superproject
+        List<String> serial = scanSubmodule(new File(directory, "serial"), 1);
+        List<String> concurrent = scanSubmodule(new File(directory, "concurrent"), 2);
+
+        assertThat(serial).isNotEmpty();
+        assertThat(concurrent).isEqualTo(serial);
+    }
+
+    private List<String> scanSubmodule(File workTree, int repositoryThreads) throws Exception {
+        File submoduleOrigin = new File(workTree.getParentFile(), workTree.getName() + "-origin");
+        try (Git submodule = Git.init().setDirectory(submoduleOrigin).setInitialBranch("main").call()) {
+            Files.writeString(new File(submoduleOrigin, "sub.txt").toPath(), "submodule\n");
+            submodule.add().addFilepattern(".").call();
+            submodule.commit().setMessage("submodule").setSign(false).call();
+        }
+        try (Git superproject = Git.init().setDirectory(workTree).setInitialBranch("main").call()) {
+            Files.writeString(new File(workTree, "super.txt").toPath(), "superproject\n");
+            superproject.add().addFilepattern(".").call();
+            superproject.submoduleAdd().setPath("sub").setURI(submoduleOrigin.toURI().toString()).call().close();
+            superproject.commit().setMessage("superproject with submodule").setSign(false).call();
+        }
+
+        getScanner(Map.of("jqassistant.plugin.git.scan-submodules", "true",
+                "jqassistant.plugin.git.repository-threads", String.valueOf(repositoryThreads)))
+                .scan(workTree, workTree.getAbsolutePath(), DefaultScope.NONE);
+
+        String submoduleDirectory = new File(workTree, ".git/modules/sub").getAbsolutePath();
+        store.beginTransaction();
+        try (Result<CompositeRowObject> result = store.executeQuery(
+                "MATCH (r:Git:Repository {fileName: $fileName}) OPTIONAL MATCH (r)-[:HAS_COMMIT]->(c:Git:Commit) " +
+                "RETURN labels(r) AS labels, r.name AS name, count(c) AS commits", Map.of("fileName", submoduleDirectory))) {
+            List<String> descriptors = new ArrayList<>();
+            for (CompositeRowObject row : result) {
+                List<String> labels = new ArrayList<>(row.get("labels", List.class));
+                Collections.sort(labels);
+                descriptors.add(labels + " " + row.get("name", String.class) + " #" + row.get("commits", Long.class));
+            }
+            return descriptors;
+        } finally {
+            store.commitTransaction();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.kontext_e.jqassistant.plugin.git.scanner;
+
+import de.kontext_e.jqassistant.plugin.git.scanner.utils.TimestampFormatter;
+import org.junit.jupiter.api.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The strings of {@link TimestampFormatter} must not differ from the ones of the SimpleDateFormats it replaced, they
+ * are compared as stored properties.
+ */
+class TimestampFormatterTest {
+
+    private static final List<String> ZONES = List.of("UTC", "Europe/Berlin", "America/New_York", "Asia/Kolkata", "Australia/Adelaide");
+
+    // 1901-12-14 to 2100-01-01, SimpleDateFormat switches to the Julian calendar before 1582
+    private static final long MIN_EPOCH = -2_147_483_648_000L;
+    private static final long MAX_EPOCH = 4_102_444_800_000L;
+
+    @Test
+    void testRandomTimestampsAreFormattedLikeSimpleDateFormat() {
+        Random random = new Random(42);
+        for (String zone : ZONES) {
+            OldFormats old = new OldFormats(zone);
+            TimestampFormatter formatter = new TimestampFormatter(ZoneId.of(zone));
+            for (int i = 0; i < 20_000; i++) {
+                long epoch = MIN_EPOCH + (long) (random.nextDouble() * (MAX_EPOCH - MIN_EPOCH));
+                old.assertSameAs(formatter, epoch);
+            }
+        }
+    }
+
+    @Test
+    void testNegativeEpochsAreFormattedLikeSimpleDateFormat() {
+        for (String zone : ZONES) {
+            OldFormats old = new OldFormats(zone);
+            TimestampFormatter formatter = new TimestampFormatter(ZoneId.of(zone));
+            // the seconds of negative epochs are rounded down, not towards zero
+            for (long epoch : new long[]{-1L, -999L, -1000L, -1001L, -1500L, -86_400_000L, -86_400_001L, 0L, 999L}) {
+                old.assertSameAs(formatter, epoch);
+            }
+        }
+    }
+
+    @Test
+    void testEpochsInTheSameCacheSlotAreFormattedLikeSimpleDateFormat() {
+        for (String zone : ZONES) {
+            OldFormats old = new OldFormats(zone);
+            TimestampFormatter formatter = new TimestampFormatter(ZoneId.of(zone));
+            // the cache is indexed by the low bits of the epoch second (inverted for negative ones), these evict
+            // each other on every call
+            long epoch = 1_600_000_000_000L;
+            long sameSlot = epoch + 256_000L;
+            long negativeSameSlot = -epoch - 1000L;
+            for (int i = 0; i < 3; i++) {
+                old.assertSameAs(formatter, epoch);
+                old.assertSameAs(formatter, sameSlot);
+                old.assertSameAs(formatter, epoch + 999L);
+                old.assertSameAs(formatter, negativeSameSlot);
+            }
+        }
+    }
+
+    /*
+     * The formats of the former TimeAndDateFormats, in the zone of the compared formatter.
+     */
+    private static final class OldFormats {
+        private final DateFormat date = new SimpleDateFormat("yyyy-MM-dd");
+        private final DateFormat time = new SimpleDateFormat("HH:mm:ss Z");
+        private final DateFormat dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z");
+
+        OldFormats(String zone) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            date.setTimeZone(timeZone);
+            time.setTimeZone(timeZone);
+            dateTime.setTimeZone(timeZone);
+        }
+
+        void assertSameAs(TimestampFormatter formatter, long epoch) {
+            Date timestamp = new Date(epoch);
+            assertThat(formatter.formatDate(timestamp)).isEqualTo(date.format(timestamp));
+            assertThat(formatter.formatTime(timestamp)).isEqualTo(time.format(timestamp));
+            assertThat(formatter.formatDateTime(timestamp)).isEqualTo(dateTime.format(timestamp));
+            assertThat(formatter.formatDateTime(epoch)).isEqualTo(dateTime.format(timestamp));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.kontext_e.jqassistant.plugin.git.scanner.cache;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommitIndexTest {
+
+    @Test
+    void testMissingShasAreUnknown() {
+        CommitIndex index = new CommitIndex();
+        index.put(sha(1, 1), 10);
+
+        assertThat(index.get(sha(2, 2))).isEqualTo(CommitIndex.UNKNOWN);
+        // same slot, differs only in the last word
+        assertThat(index.get(ObjectId.fromRaw(new int[]{1, 1, 0, 0, 1}))).isEqualTo(CommitIndex.UNKNOWN);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testCollidingShasKeepTheirNodeIds() {
+        CommitIndex index = new CommitIndex();
+        // the second word selects the slot, all of them probe from the same one
+        for (int i = 0; i < 100; i++) {
+            index.put(sha(i, 42), i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(index.get(sha(i, 42))).isEqualTo(i);
+        }
+        assertThat(index.get(sha(100, 42))).isEqualTo(CommitIndex.UNKNOWN);
+        assertThat(index.size()).isEqualTo(100);
+    }
+
+    @Test
+    void testGrowthPastTheLoadFactor() {
+        CommitIndex index = new CommitIndex();
+        // the initial capacity is 1024, this rehashes several times, also with colliding slots
+        for (int i = 0; i < 20_000; i++) {
+            index.put(sha(i, i % 300), 1_000_000L + i);
+        }
+
+        assertThat(index.size()).isEqualTo(20_000);
+        for (int i = 0; i < 20_000; i++) {
+            assertThat(index.get(sha(i, i % 300))).isEqualTo(1_000_000L + i);
+        }
+        assertThat(index.get(sha(20_000, 0))).isEqualTo(CommitIndex.UNKNOWN);
+    }
+
+    @Test
+    void testPutReplacesNotInStore() {
+        CommitIndex index = new CommitIndex();
+        ObjectId sha = ObjectId.fromString("0123456789abcdef0123456789abcdef01234567");
+        index.put(sha, CommitIndex.NOT_IN_STORE);
+
+        assertThat(index.get(sha)).isEqualTo(CommitIndex.NOT_IN_STORE);
+
+        index.put(sha, 7);
+
+        assertThat(index.get(ObjectId.fromString(sha.name()))).isEqualTo(7L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    private static ObjectId sha(int first, int second) {
+        return ObjectId.fromRaw(new int[]{first, second, 0, 0, 0});
+    }
+}